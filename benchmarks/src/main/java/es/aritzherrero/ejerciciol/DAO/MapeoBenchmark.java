@@ -0,0 +1,111 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.benchmarks.FilasEnMemoria;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de convertir filas de un ResultSet en Avion y en AeropuertoPublico con los mapeos de los DAO.
+ * Está en el paquete de los DAO porque los mapeos son privados del paquete. El ResultSet es {@link FilasEnMemoria};
+ * {@link #soloLectura} mide lo que cuesta leerlo sin construir nada, para descontarlo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapeoBenchmark {
+    private static final String[] COLUMNAS_AVIONES = {"id", "modelo", "numero_asientos", "velocidad_maxima",
+            "activado", "id_aeropuerto", "nombre", "anio_inauguracion", "capacidad", "id_direccion",
+            "pais", "ciudad", "calle", "numero"};
+    private static final String[] COLUMNAS_TIPADAS = {"id", "nombre", "anio_inauguracion", "capacidad",
+            "id_direccion", "id_publico", "financiacion", "num_trabajadores", "id_privado", "numero_socios",
+            "pais", "ciudad", "calle", "numero"};
+
+    @Param({"1000"})
+    private int filas;
+
+    // aeropuertos distintos entre los aviones: con pocos, el mapa de identidad reutiliza más instancias
+    @Param({"10", "1000"})
+    private int aeropuertos;
+
+    private FilasEnMemoria aviones;
+    private FilasEnMemoria publicos;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        Object[][] filasAviones = new Object[filas][];
+        for (int i = 0; i < filas; i++) {
+            int idAeropuerto = 1 + i % aeropuertos;
+            filasAviones[i] = new Object[]{i + 1, "Modelo " + random.nextInt(500), 100 + random.nextInt(300),
+                    600 + random.nextInt(400), random.nextBoolean(), idAeropuerto, "Aeropuerto " + idAeropuerto,
+                    1950 + idAeropuerto % 70, 1000 * (1 + idAeropuerto % 50), idAeropuerto, "España",
+                    "Ciudad " + idAeropuerto, "Calle " + idAeropuerto, 1 + idAeropuerto % 200};
+        }
+        aviones = new FilasEnMemoria(COLUMNAS_AVIONES, filasAviones);
+
+        Object[][] filasPublicos = new Object[filas][];
+        for (int i = 0; i < filas; i++) {
+            int id = i + 1;
+            filasPublicos[i] = new Object[]{id, "Aeropuerto " + id, 1950 + id % 70, 1000 * (1 + id % 50), id,
+                    id, BigDecimal.valueOf(random.nextInt(1_000_000), 2), random.nextInt(5000), null, null,
+                    "España", "Ciudad " + id, "Calle " + id, 1 + id % 200};
+        }
+        publicos = new FilasEnMemoria(COLUMNAS_TIPADAS, filasPublicos);
+    }
+
+    @Benchmark
+    public void soloLectura(Blackhole bh) throws SQLException {
+        ResultSet rs = aviones.reiniciar();
+        while (rs.next()) {
+            bh.consume(rs.getInt("id"));
+            bh.consume(rs.getString("modelo"));
+            bh.consume(rs.getInt("numero_asientos"));
+            bh.consume(rs.getInt("velocidad_maxima"));
+            bh.consume(rs.getBoolean("activado"));
+            bh.consume(rs.getInt("id_aeropuerto"));
+        }
+    }
+
+    @Benchmark
+    public ObservableList<Avion> aviones() throws SQLException {
+        ObservableList<Avion> lista = FXCollections.observableArrayList();
+        AvionDAO.leerAviones(aviones.reiniciar(), lista);
+        return lista;
+    }
+
+    @Benchmark
+    public List<Object> aeropuertosPublicos() throws SQLException {
+        List<Object> lista = new ArrayList<>(filas);
+        try (MapaIdentidad sesion = MapaIdentidad.abrir()) {
+            ResultSet rs = publicos.reiniciar();
+            while (rs.next()) {
+                lista.add(AeropuertoDAO.mapearAeropuertoTipado(rs));
+            }
+        }
+        return lista;
+    }
+}
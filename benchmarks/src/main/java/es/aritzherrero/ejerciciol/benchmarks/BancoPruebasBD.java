@@ -0,0 +1,307 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
+import es.aritzherrero.ejerciciol.DAO.AeropuertoPrivadoDAO;
+import es.aritzherrero.ejerciciol.DAO.AeropuertoPublicoDAO;
+import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.DAO.EstadisticasFlota;
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.Direccion;
+import es.aritzherrero.ejerciciol.Modelo.ResumenFlota;
+import es.aritzherrero.ejerciciol.db.ConexionDB;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Banco de pruebas de extremo a extremo de los DAO contra una base de datos H2 en memoria en modo MySQL, para tener
+ * cifras de latencia y de consultas por segundo reproducibles sin el MySQL del puerto 33066.
+ * <p>
+ * Crea el esquema ({@code esquema.sql}), lo llena con {@link GeneradorDatos} y repite cada escenario midiendo cada
+ * operación por separado:
+ * <ul>
+ *     <li>listado: lo que hace la pantalla de aeropuertos al abrirse (contar y cargar el listado tipado).</li>
+ *     <li>info: abrir el diálogo de información de un aeropuerto al azar (resumen de la flota, primera página de
+ *     aviones y hash de la imagen).</li>
+ *     <li>alta avion: comprobar que el modelo no existe en el aeropuerto e insertarlo.</li>
+ *     <li>baja cascada: eliminar un aeropuerto con su flota. El aeropuerto se crea antes, fuera de la medida.</li>
+ * </ul>
+ * Las consultas se cuentan con {@link ContadorConsultas}. Los resultados se muestran en una tabla y se guardan en JSON.
+ * <p>
+ * Los datos se configuran con las propiedades {@code ejerciciol.generador.*} de {@link GeneradorDatos#desdePropiedades()}
+ * y los escenarios con:
+ * <ul>
+ *     <li>{@code ejerciciol.banco.avionesBaja} (20): aviones del aeropuerto que se elimina en cada baja en cascada.</li>
+ *     <li>{@code ejerciciol.banco.iteraciones} (1000) y {@code ejerciciol.banco.calentamiento} (200): operaciones
+ *     medidas y previas sin medir de cada escenario.</li>
+ *     <li>{@code ejerciciol.banco.semilla} (42): semilla de la elección de aeropuertos y de los datos de las altas.</li>
+ *     <li>{@code ejerciciol.banco.resultado} (target/banco-resultados.json): fichero de resultados.</li>
+ * </ul>
+ */
+public class BancoPruebasBD {
+    private static final String URL = ContadorConsultas.PREFIJO
+            + "h2:mem:ejerciciol;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String ESQUEMA = "classpath:/es/aritzherrero/ejerciciol/benchmarks/esquema.sql";
+
+    private static final int AVIONES_BAJA = Integer.getInteger("ejerciciol.banco.avionesBaja", 20);
+    private static final int ITERACIONES = Integer.getInteger("ejerciciol.banco.iteraciones", 1000);
+    private static final int CALENTAMIENTO = Integer.getInteger("ejerciciol.banco.calentamiento", 200);
+    private static final long SEMILLA = Long.getLong("ejerciciol.banco.semilla", 42L);
+    private static final String RESULTADO = System.getProperty("ejerciciol.banco.resultado",
+            "target/banco-resultados.json");
+    private static final int PAGINA_AVIONES = 25;
+
+    /**
+     * Una operación de un escenario.
+     */
+    private interface Paso {
+        /**
+         * @param iteracion Número de la operación, empezando por las de calentamiento.
+         * @return false si la operación ha fallado.
+         */
+        boolean ejecutar(int iteracion) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ContadorConsultas.registrar();
+        // ConexionDB lee la URL al cargarse, así que hay que fijarla antes de usar ningún DAO
+        System.setProperty("ejerciciol.db.url", URL);
+        System.setProperty("ejerciciol.db.user", "sa");
+        System.setProperty("ejerciciol.db.password", "");
+        crearEsquema();
+
+        PrintStream consola = System.out;
+        GeneradorDatos.Resultado datos;
+        List<Resultado> resultados = new ArrayList<>();
+        // los DAO confirman cada operación por consola; se sigue pagando el println, pero no se ve
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            List<Aeropuerto> aeropuertos = new ArrayList<>();
+            datos = GeneradorDatos.desdePropiedades().generar(aeropuertos::add);
+            consola.println("Datos: " + datos);
+            if (aeropuertos.isEmpty()) {
+                throw new IllegalStateException("Hace falta al menos un aeropuerto");
+            }
+            Random random = new Random(SEMILLA);
+
+            resultados.add(medir("listado", null, i -> {
+                int total = AeropuertoDAO.contarTipados(AeropuertoPublico.class)
+                        + AeropuertoDAO.contarTipados(AeropuertoPrivado.class);
+                return total >= 0 && AeropuertoDAO.cargarListadoTipado() != null;
+            }));
+            resultados.add(medir("info", null, i -> {
+                Aeropuerto aeropuerto = aeropuertos.get(random.nextInt(aeropuertos.size()));
+                ResumenFlota resumen = EstadisticasFlota.getResumen(aeropuerto);
+                AeropuertoDAO.getHashImagen(aeropuerto.getId());
+                return resumen != null && AvionDAO.cargarPagina(aeropuerto, 0, PAGINA_AVIONES) != null;
+            }));
+            resultados.add(medir("alta avion", null, i -> {
+                Aeropuerto aeropuerto = aeropuertos.get(random.nextInt(aeropuertos.size()));
+                Avion avion = new Avion(0, "Banco " + i, 180, 840, true, aeropuerto);
+                return !AvionDAO.existe(avion.getModelo(), aeropuerto.getId()) && AvionDAO.insertar(avion) != -1;
+            }));
+            Aeropuerto[] aBorrar = new Aeropuerto[1];
+            resultados.add(medir("baja cascada", i -> {
+                aBorrar[0] = crearAeropuerto(random, i);
+                return aBorrar[0] != null;
+            }, i -> AeropuertoDAO.eliminarEnCascada(aBorrar[0])));
+        } finally {
+            System.setOut(consola);
+            ConexionDB.cerrarPool();
+        }
+
+        System.out.println(Resultado.CABECERA);
+        for (Resultado resultado : resultados) {
+            System.out.println(resultado);
+        }
+        guardar(datos, resultados);
+    }
+
+    /**
+     * Calcula el MD5 de un BLOB como el MD5 de MySQL. Lo registra el esquema como función de H2.
+     *
+     * @param datos El BLOB, o null.
+     * @return El hash en hexadecimal en minúsculas, o null si el BLOB es null.
+     */
+    public static String md5(Blob datos) throws SQLException, IOException, NoSuchAlgorithmException {
+        if (datos == null) {
+            return null;
+        }
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        byte[] buffer = new byte[8192];
+        try (InputStream in = datos.getBinaryStream()) {
+            int leidos;
+            while ((leidos = in.read(buffer)) != -1) {
+                md5.update(buffer, 0, leidos);
+            }
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    private static void crearEsquema() throws SQLException {
+        try (Connection conexion = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conexion.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM '" + ESQUEMA + "'");
+        }
+    }
+
+    /**
+     * Crea, con los DAO que usa la aplicación, un aeropuerto para darlo de baja con {@code ejerciciol.banco.avionesBaja}
+     * aviones.
+     *
+     * @return El aeropuerto, con su ID, o null si no se ha podido crear.
+     */
+    private static Aeropuerto crearAeropuerto(Random random, int numero) throws SQLException {
+        Direccion direccion = new Direccion(0, "España", "Ciudad " + numero % 500, "Calle " + numero,
+                1 + random.nextInt(200));
+        Aeropuerto aeropuerto = new Aeropuerto(0, "Baja " + numero, 1920 + random.nextInt(100),
+                1000 * (1 + random.nextInt(100)), direccion, null);
+        int id = numero % 2 == 0
+                ? AeropuertoPublicoDAO.crear(new AeropuertoPublico(aeropuerto,
+                BigDecimal.valueOf(random.nextInt(100_000_000), 2), random.nextInt(5000)))
+                : AeropuertoPrivadoDAO.crear(new AeropuertoPrivado(aeropuerto, random.nextInt(500)));
+        if (id == -1) {
+            return null;
+        }
+        List<Avion> aviones = new ArrayList<>(AVIONES_BAJA);
+        for (int j = 0; j < AVIONES_BAJA; j++) {
+            aviones.add(new Avion(0, "Modelo " + j, 100 + random.nextInt(300), 600 + random.nextInt(400),
+                    random.nextInt(4) != 0, aeropuerto));
+        }
+        if (!aviones.isEmpty() && AvionDAO.insertarLote(aviones) == null) {
+            return null;
+        }
+        return aeropuerto;
+    }
+
+    /**
+     * Ejecuta un escenario: primero las operaciones de calentamiento y después las medidas.
+     *
+     * @param preparar  Se ejecuta antes de cada operación, fuera de la medida; puede ser null.
+     * @param operacion La operación que se mide.
+     */
+    private static Resultado medir(String nombre, Paso preparar, Paso operacion) throws Exception {
+        int errores = 0;
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            if (preparar != null) {
+                preparar.ejecutar(i);
+            }
+            operacion.ejecutar(i);
+        }
+        long[] nanos = new long[ITERACIONES];
+        long consultas = 0;
+        for (int i = 0; i < ITERACIONES; i++) {
+            int iteracion = CALENTAMIENTO + i;
+            if (preparar != null && !preparar.ejecutar(iteracion)) {
+                throw new IllegalStateException("No se pudo preparar la operación " + iteracion + " de " + nombre);
+            }
+            long antes = ContadorConsultas.getConsultas();
+            long inicio = System.nanoTime();
+            boolean correcta = operacion.ejecutar(iteracion);
+            nanos[i] = System.nanoTime() - inicio;
+            consultas += ContadorConsultas.getConsultas() - antes;
+            if (!correcta) {
+                errores++;
+            }
+        }
+        return new Resultado(nombre, nanos, consultas, errores);
+    }
+
+    private static void guardar(GeneradorDatos.Resultado datos, List<Resultado> resultados) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"aeropuertos\": ").append(datos.getAeropuertos())
+                .append(",\n  \"aviones\": ").append(datos.getAviones())
+                .append(",\n  \"iteraciones\": ").append(ITERACIONES)
+                .append(",\n  \"escenarios\": [");
+        for (int i = 0; i < resultados.size(); i++) {
+            json.append(i == 0 ? "\n    " : ",\n    ").append(resultados.get(i).toJson());
+        }
+        json.append("\n  ]\n}\n");
+        Path fichero = Path.of(RESULTADO);
+        if (fichero.getParent() != null) {
+            Files.createDirectories(fichero.getParent());
+        }
+        Files.writeString(fichero, json);
+        System.out.println("Resultados guardados en " + fichero.toAbsolutePath());
+    }
+
+    /**
+     * Latencias y consultas de un escenario.
+     */
+    private static final class Resultado {
+        static final String CABECERA = String.format(Locale.ROOT, "%-14s %8s %10s %10s %10s %10s %9s %11s %7s",
+                "escenario", "ops", "p50 (ms)", "p99 (ms)", "max (ms)", "ops/s", "cons/op", "consultas/s",
+                "errores");
+
+        private final String nombre;
+        private final long[] nanos;
+        private final long consultas;
+        private final int errores;
+        private final double segundos;
+
+        Resultado(String nombre, long[] nanos, long consultas, int errores) {
+            this.nombre = nombre;
+            this.nanos = nanos.clone();
+            Arrays.sort(this.nanos);
+            this.consultas = consultas;
+            this.errores = errores;
+            this.segundos = Arrays.stream(nanos).sum() / 1e9;
+        }
+
+        double percentilMs(double percentil) {
+            if (nanos.length == 0) {
+                return 0;
+            }
+            int posicion = (int) Math.ceil(percentil / 100 * nanos.length) - 1;
+            return nanos[Math.max(0, posicion)] / 1e6;
+        }
+
+        double operacionesPorSegundo() {
+            return segundos == 0 ? 0 : nanos.length / segundos;
+        }
+
+        double consultasPorSegundo() {
+            return segundos == 0 ? 0 : consultas / segundos;
+        }
+
+        double consultasPorOperacion() {
+            return nanos.length == 0 ? 0 : (double) consultas / nanos.length;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"escenario\": \"%s\", \"operaciones\": %d, \"p50Ms\": %.4f, "
+                            + "\"p99Ms\": %.4f, \"maxMs\": %.4f, \"operacionesPorSegundo\": %.1f, "
+                            + "\"consultasPorOperacion\": %.2f, \"consultasPorSegundo\": %.1f, \"errores\": %d}",
+                    nombre, nanos.length, percentilMs(50), percentilMs(99), percentilMs(100),
+                    operacionesPorSegundo(), consultasPorOperacion(), consultasPorSegundo(), errores);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-14s %8d %10.3f %10.3f %10.3f %10.0f %9.2f %11.0f %7d",
+                    nombre, nanos.length, percentilMs(50), percentilMs(99), percentilMs(100),
+                    operacionesPorSegundo(), consultasPorOperacion(), consultasPorSegundo(), errores);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanza los benchmarks con las opciones de línea de comandos de JMH, pero guardando por defecto los resultados en JSON
+ * para poder comparar ejecuciones (por ejemplo con https://jmh.morethan.io).
+ * Si no se indica {@code -rf} ni {@code -rff}, se escriben en target/jmh-resultados.json.
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions linea = new CommandLineOptions(args);
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(linea);
+        if (!linea.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linea.getResult().hasValue()) {
+            opciones.result("target/jmh-resultados.json");
+        }
+        new Runner(opciones.build()).run();
+    }
+}
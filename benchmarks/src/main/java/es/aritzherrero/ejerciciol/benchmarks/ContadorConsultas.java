@@ -0,0 +1,117 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Driver JDBC que envuelve a otro y cuenta las sentencias que se ejecutan, para saber cuántas consultas hace cada
+ * operación de los DAO. Acepta URLs {@code jdbc:contador:<resto>} y abre la conexión real con {@code jdbc:<resto>}.
+ * Cada execute, executeQuery, executeUpdate o executeBatch cuenta como una consulta (un viaje a la base de datos).
+ */
+public final class ContadorConsultas implements Driver {
+    public static final String PREFIJO = "jdbc:contador:";
+
+    private static final AtomicLong consultas = new AtomicLong();
+    private static boolean registrado;
+
+    private ContadorConsultas() {
+    }
+
+    /**
+     * Registra el driver, si no lo estaba ya.
+     */
+    public static synchronized void registrar() throws SQLException {
+        if (!registrado) {
+            DriverManager.registerDriver(new ContadorConsultas());
+            registrado = true;
+        }
+    }
+
+    /**
+     * @return Consultas ejecutadas desde que se cargó el driver.
+     */
+    public static long getConsultas() {
+        return consultas.get();
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Connection conexion = DriverManager.getConnection("jdbc:" + url.substring(PREFIJO.length()), info);
+        return envolver(Connection.class, conexion);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIJO);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * Envuelve una conexión o una sentencia. Las sentencias que crea una conexión envuelta también se envuelven.
+     */
+    private static <T> T envolver(Class<T> interfaz, T real) {
+        InvocationHandler manejador = (proxy, metodo, args) -> {
+            String nombre = metodo.getName();
+            if (Statement.class.isAssignableFrom(interfaz) && nombre.startsWith("execute")) {
+                consultas.incrementAndGet();
+            }
+            Object resultado;
+            try {
+                resultado = metodo.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (interfaz == Connection.class && resultado instanceof Statement sentencia) {
+                return envolverSentencia(metodo, sentencia);
+            }
+            return resultado;
+        };
+        return interfaz.cast(Proxy.newProxyInstance(ContadorConsultas.class.getClassLoader(),
+                new Class<?>[]{interfaz}, manejador));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Statement envolverSentencia(Method metodo, Statement sentencia) {
+        // createStatement, prepareStatement y prepareCall devuelven el tipo declarado por el método
+        return envolver((Class<Statement>) metodo.getReturnType(), sentencia);
+    }
+}
@@ -0,0 +1,90 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ResultSet sobre filas en memoria, para medir el mapeo de los DAO sin base de datos.
+ * Solo implementa lo que usan los DAO para leer (next, get* por nombre o posición, wasNull); el resto lanza
+ * UnsupportedOperationException. Se puede recorrer varias veces con {@link #reiniciar()}.
+ */
+public final class FilasEnMemoria implements InvocationHandler {
+    private final Map<String, Integer> columnas = new HashMap<>();
+    private final Object[][] filas;
+    private final ResultSet resultSet;
+    private int actual = -1;
+    private boolean ultimoNulo;
+
+    /**
+     * @param columnas Nombres de las columnas, como los devuelve la consulta.
+     * @param filas    Valores de cada fila, en el orden de las columnas; null para NULL.
+     */
+    public FilasEnMemoria(String[] columnas, Object[][] filas) {
+        for (int i = 0; i < columnas.length; i++) {
+            this.columnas.put(columnas[i].toLowerCase(Locale.ROOT), i);
+        }
+        this.filas = filas;
+        this.resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, this);
+    }
+
+    /**
+     * @return El ResultSet, colocado antes de la primera fila.
+     */
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    /**
+     * Vuelve a colocar el ResultSet antes de la primera fila.
+     */
+    public ResultSet reiniciar() {
+        actual = -1;
+        return resultSet;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "next":
+                return ++actual < filas.length;
+            case "wasNull":
+                return ultimoNulo;
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            case "getInt":
+                return valor(args[0]) instanceof Number n ? n.intValue() : 0;
+            case "getLong":
+                return valor(args[0]) instanceof Number n ? n.longValue() : 0L;
+            case "getBoolean":
+                return Boolean.TRUE.equals(valor(args[0]));
+            case "getString":
+                Object texto = valor(args[0]);
+                return texto == null ? null : texto.toString();
+            case "getBigDecimal":
+                return (BigDecimal) valor(args[0]);
+            case "getObject":
+            case "getBlob":
+                return valor(args[0]);
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object valor(Object columna) {
+        int indice = columna instanceof Integer posicion
+                ? posicion - 1
+                : columnas.get(((String) columna).toLowerCase(Locale.ROOT));
+        Object valor = filas[actual][indice];
+        ultimoNulo = valor == null;
+        return valor;
+    }
+}
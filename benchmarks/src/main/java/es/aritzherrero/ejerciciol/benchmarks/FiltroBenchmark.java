@@ -0,0 +1,136 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import es.aritzherrero.ejerciciol.DAO.IndiceTrigramas;
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Filtro de aeropuertos por nombre como el de EjercicioL_Aeropuerto_Control.filtrar, de 10 mil a un millón de
+ * aeropuertos. Compara recorrer todos los nombres con contains (como se hacía antes) con el índice de trigramas,
+ * tanto para una consulta suelta como para la consulta escrita letra a letra.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FiltroBenchmark {
+    private static final String[] SILABAS = {"ma", "dri", "bar", "ce", "lo", "na", "se", "vi", "lla", "bil", "ba",
+            "o", "san", "tia", "go", "va", "len", "cia", "pal", "mal", "ter", "ne", "ri", "fe", "gran", "ca", "ria"};
+    private static final String[] SUFIJOS = {"", " Internacional", " Airport", " Regional", " Norte", " Sur"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int tamanio;
+
+    // una consulta frecuente, una poco frecuente y una sin resultados
+    @Param({"ma", "internacional", "zzz"})
+    private String consulta;
+
+    private List<Object> aeropuertos;
+    private IndiceTrigramas<Object> indice;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        aeropuertos = new ArrayList<>(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            StringBuilder nombre = new StringBuilder();
+            int silabas = 2 + random.nextInt(3);
+            for (int s = 0; s < silabas; s++) {
+                nombre.append(SILABAS[random.nextInt(SILABAS.length)]);
+            }
+            nombre.setCharAt(0, Character.toUpperCase(nombre.charAt(0)));
+            nombre.append(SUFIJOS[random.nextInt(SUFIJOS.length)]);
+            Aeropuerto aeropuerto = new Aeropuerto(i + 1, nombre.toString(), 1950, 1000, null, null);
+            aeropuertos.add(new AeropuertoPublico(aeropuerto, BigDecimal.ZERO, 0));
+        }
+        indice = new IndiceTrigramas<>(aeropuertos, FiltroBenchmark::nombre);
+    }
+
+    private static String nombre(Object aeropuerto) {
+        return ((AeropuertoPublico) aeropuerto).getAeropuerto().getNombre();
+    }
+
+    /**
+     * Como el filtro original: pasar a minúsculas y buscar en cada nombre.
+     */
+    @Benchmark
+    public int recorrido() {
+        return contarRecorrido(consulta);
+    }
+
+    @Benchmark
+    public int indice() {
+        indice.buscar(""); // olvida la consulta anterior para no medir solo el refinamiento
+        return indice.buscar(consulta).cardinality();
+    }
+
+    /**
+     * Lo que hace la FilteredList al cambiar el filtro: evaluar el predicado del índice en cada elemento.
+     */
+    @Benchmark
+    public int indiceConPredicado() {
+        indice.buscar("");
+        Predicate<Object> filtro = indice.filtro(consulta);
+        int encontrados = 0;
+        for (Object aeropuerto : aeropuertos) {
+            if (filtro.test(aeropuerto)) {
+                encontrados++;
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * La consulta escrita letra a letra, filtrando en cada pulsación.
+     */
+    @Benchmark
+    public int recorridoAlEscribir() {
+        int encontrados = 0;
+        for (int n = 1; n <= consulta.length(); n++) {
+            encontrados = contarRecorrido(consulta.substring(0, n));
+        }
+        return encontrados;
+    }
+
+    @Benchmark
+    public int indiceAlEscribir() {
+        indice.buscar("");
+        int encontrados = 0;
+        for (int n = 1; n <= consulta.length(); n++) {
+            encontrados = indice.buscar(consulta.substring(0, n)).cardinality();
+        }
+        return encontrados;
+    }
+
+    private int contarRecorrido(String texto) {
+        String q = texto.toLowerCase(Locale.ROOT);
+        int encontrados = 0;
+        for (Object aeropuerto : aeropuertos) {
+            if (nombre(aeropuerto).toLowerCase(Locale.ROOT).contains(q)) {
+                encontrados++;
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,329 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
+import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.Direccion;
+import es.aritzherrero.ejerciciol.db.ConexionDB;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Generador de datos sintéticos para pruebas de carga: aeropuertos públicos y privados con su dirección y sus
+ * aviones, insertados directamente en la base de datos configurada en ConexionDB.
+ * <p>
+ * Es determinista: con la misma semilla y la misma configuración genera exactamente los mismos datos (salvo los IDs,
+ * que los asigna la base de datos). Se configura con:
+ * <ul>
+ *     <li>Número de aeropuertos y proporción de públicos.</li>
+ *     <li>Aviones por aeropuerto: su media y su {@link Distribucion}.</li>
+ *     <li>Cardinalidad de los modelos: cuántos modelos distintos hay. Como un aeropuerto no puede tener dos aviones
+ *     del mismo modelo, también es el máximo de aviones por aeropuerto.</li>
+ *     <li>Proporción de aviones activados.</li>
+ *     <li>Tamaño de la imagen de cada aeropuerto (por defecto, sin imagen).</li>
+ * </ul>
+ * Los datos se generan y se insertan por trozos con {@link AeropuertoDAO#insertarLote} y
+ * {@link AvionDAO#insertarLote}, cada trozo en su propia transacción, así que la memoria que usa depende del tamaño
+ * del trozo y del número de modelos, no del tamaño total.
+ */
+public class GeneradorDatos {
+
+    /**
+     * Cómo se reparten los aviones entre los aeropuertos.
+     */
+    public enum Distribucion {
+        /**
+         * Todos los aeropuertos tienen la media.
+         */
+        FIJA,
+        /**
+         * Uniforme entre 0 y el doble de la media.
+         */
+        UNIFORME,
+        /**
+         * De Pareto: muchos aeropuertos pequeños y unos pocos muy grandes, como en la realidad.
+         */
+        PARETO
+    }
+
+    private static final String[] FABRICANTES = {"Airbus A", "Boeing 7", "Embraer E", "Bombardier CRJ", "ATR ",
+            "Cessna C", "Dassault Falcon ", "Gulfstream G"};
+    private static final String[] PAISES = {"España", "Francia", "Portugal", "Italia", "Alemania", "Reino Unido",
+            "Estados Unidos", "México", "Argentina", "Japón"};
+    private static final String[] CALLES = {"Avenida", "Calle", "Carretera", "Paseo", "Camino"};
+    private static final String[] SILABAS = {"ma", "dri", "bar", "ce", "lo", "na", "se", "vi", "lla", "bil", "ba",
+            "o", "san", "tia", "go", "va", "len", "cia", "pal", "mal", "ter", "ne", "ri", "fe", "gran", "ca", "ria"};
+    private static final String[] SUFIJOS = {"", " Internacional", " Airport", " Regional", " Norte", " Sur"};
+    // exponente de la distribución de Pareto; con 1.5 la media es finita y la cola, larga
+    private static final double ALFA_PARETO = 1.5;
+
+    private final long semilla;
+    private int aeropuertos = 1000;
+    private double proporcionPublicos = 0.5;
+    private double mediaAviones = 20;
+    private Distribucion distribucion = Distribucion.PARETO;
+    private int modelos = 500;
+    private double proporcionActivados = 0.75;
+    private int bytesImagen;
+    private int tamanioLote = 500;
+
+    /**
+     * @param semilla Semilla de la que salen todos los datos.
+     */
+    public GeneradorDatos(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Crea un generador configurado con las propiedades del sistema {@code ejerciciol.generador.*}: semilla,
+     * aeropuertos, proporcionPublicos, mediaAviones, distribucion, modelos, proporcionActivados, bytesImagen y
+     * tamanioLote.
+     * Las que no se indiquen toman el valor por defecto.
+     */
+    public static GeneradorDatos desdePropiedades() {
+        GeneradorDatos generador = new GeneradorDatos(Long.getLong("ejerciciol.generador.semilla", 42L));
+        generador.setAeropuertos(Integer.getInteger("ejerciciol.generador.aeropuertos", generador.aeropuertos));
+        generador.setProporcionPublicos(propiedad("proporcionPublicos", generador.proporcionPublicos));
+        generador.setMediaAviones(propiedad("mediaAviones", generador.mediaAviones));
+        generador.setDistribucion(Distribucion.valueOf(System.getProperty("ejerciciol.generador.distribucion",
+                generador.distribucion.name()).toUpperCase(Locale.ROOT)));
+        generador.setModelos(Integer.getInteger("ejerciciol.generador.modelos", generador.modelos));
+        generador.setProporcionActivados(propiedad("proporcionActivados", generador.proporcionActivados));
+        generador.setBytesImagen(Integer.getInteger("ejerciciol.generador.bytesImagen", generador.bytesImagen));
+        generador.setTamanioLote(Integer.getInteger("ejerciciol.generador.tamanioLote", generador.tamanioLote));
+        return generador;
+    }
+
+    private static double propiedad(String nombre, double porDefecto) {
+        String valor = System.getProperty("ejerciciol.generador." + nombre);
+        return valor == null ? porDefecto : Double.parseDouble(valor);
+    }
+
+    /**
+     * Llena la base de datos configurada (propiedades ejerciciol.db.*) con los datos del generador.
+     */
+    public static void main(String[] args) throws SQLException {
+        GeneradorDatos generador = desdePropiedades();
+        try {
+            Resultado resultado = generador.generar(null);
+            System.out.println(resultado);
+        } finally {
+            ConexionDB.cerrarPool();
+        }
+    }
+
+    public void setAeropuertos(int aeropuertos) {
+        if (aeropuertos < 0) {
+            throw new IllegalArgumentException("El número de aeropuertos no puede ser negativo");
+        }
+        this.aeropuertos = aeropuertos;
+    }
+
+    public void setProporcionPublicos(double proporcionPublicos) {
+        this.proporcionPublicos = proporcion(proporcionPublicos);
+    }
+
+    public void setMediaAviones(double mediaAviones) {
+        if (mediaAviones < 0) {
+            throw new IllegalArgumentException("La media de aviones no puede ser negativa");
+        }
+        this.mediaAviones = mediaAviones;
+    }
+
+    public void setDistribucion(Distribucion distribucion) {
+        this.distribucion = distribucion;
+    }
+
+    public void setModelos(int modelos) {
+        if (modelos <= 0) {
+            throw new IllegalArgumentException("Tiene que haber al menos un modelo");
+        }
+        this.modelos = modelos;
+    }
+
+    public void setProporcionActivados(double proporcionActivados) {
+        this.proporcionActivados = proporcion(proporcionActivados);
+    }
+
+    public void setBytesImagen(int bytesImagen) {
+        if (bytesImagen < 0) {
+            throw new IllegalArgumentException("El tamaño de la imagen no puede ser negativo");
+        }
+        this.bytesImagen = bytesImagen;
+    }
+
+    public void setTamanioLote(int tamanioLote) {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo");
+        }
+        this.tamanioLote = tamanioLote;
+    }
+
+    private static double proporcion(double valor) {
+        if (valor < 0 || valor > 1) {
+            throw new IllegalArgumentException("La proporción debe estar entre 0 y 1: " + valor);
+        }
+        return valor;
+    }
+
+    /**
+     * Genera e inserta todos los datos.
+     *
+     * @param alInsertar Recibe cada aeropuerto insertado, ya con su ID, por ejemplo para elegir aeropuertos en un
+     *                   benchmark; puede ser null.
+     * @return Cuántos aeropuertos y aviones se han insertado y en cuánto tiempo.
+     * @throws SQLException Si falla la inserción de algún trozo. Los trozos anteriores quedan insertados.
+     */
+    public Resultado generar(Consumer<Aeropuerto> alInsertar) throws SQLException {
+        long inicio = System.nanoTime();
+        Random random = new Random(semilla);
+        String[] nombresModelos = nombresModelos();
+        int[] indices = new int[modelos];
+        for (int i = 0; i < modelos; i++) {
+            indices[i] = i;
+        }
+
+        List<Object> trozo = new ArrayList<>(Math.min(tamanioLote, aeropuertos));
+        List<Avion> aviones = new ArrayList<>(tamanioLote);
+        long totalAviones = 0;
+        for (int inicioTrozo = 0; inicioTrozo < aeropuertos; inicioTrozo += tamanioLote) {
+            int finTrozo = Math.min(aeropuertos, inicioTrozo + tamanioLote);
+            trozo.clear();
+            for (int n = inicioTrozo; n < finTrozo; n++) {
+                trozo.add(nuevoAeropuerto(random, n));
+            }
+            if (AeropuertoDAO.insertarLote(trozo, tamanioLote) == null) {
+                throw new SQLException("No se pudieron insertar los aeropuertos " + inicioTrozo + " a " + (finTrozo - 1));
+            }
+
+            for (Object tipado : trozo) {
+                Aeropuerto aeropuerto = tipado instanceof AeropuertoPublico publico
+                        ? publico.getAeropuerto()
+                        : ((AeropuertoPrivado) tipado).getAeropuerto();
+                if (alInsertar != null) {
+                    alInsertar.accept(aeropuerto);
+                }
+                int numero = numeroAviones(random);
+                for (int j = 0; j < numero; j++) {
+                    // Fisher-Yates parcial: los primeros j índices son los modelos ya usados en este aeropuerto
+                    int elegido = j + random.nextInt(modelos - j);
+                    int modelo = indices[elegido];
+                    indices[elegido] = indices[j];
+                    indices[j] = modelo;
+                    aviones.add(new Avion(0, nombresModelos[modelo], 50 + random.nextInt(800),
+                            400 + random.nextInt(600), random.nextDouble() < proporcionActivados, aeropuerto));
+                    if (aviones.size() == tamanioLote) {
+                        insertarAviones(aviones);
+                        totalAviones += tamanioLote;
+                    }
+                }
+            }
+            if (!aviones.isEmpty()) {
+                totalAviones += aviones.size();
+                insertarAviones(aviones);
+            }
+        }
+        return new Resultado(aeropuertos, totalAviones, System.nanoTime() - inicio);
+    }
+
+    private void insertarAviones(List<Avion> aviones) throws SQLException {
+        if (AvionDAO.insertarLote(aviones, tamanioLote) == null) {
+            throw new SQLException("No se pudieron insertar " + aviones.size() + " aviones");
+        }
+        aviones.clear();
+    }
+
+    private String[] nombresModelos() {
+        String[] nombres = new String[modelos];
+        for (int i = 0; i < modelos; i++) {
+            nombres[i] = FABRICANTES[i % FABRICANTES.length] + (100 + i / FABRICANTES.length);
+        }
+        return nombres;
+    }
+
+    private Object nuevoAeropuerto(Random random, int numero) throws SQLException {
+        String pais = PAISES[random.nextInt(PAISES.length)];
+        StringBuilder ciudad = new StringBuilder();
+        int silabas = 2 + random.nextInt(3);
+        for (int s = 0; s < silabas; s++) {
+            ciudad.append(SILABAS[random.nextInt(SILABAS.length)]);
+        }
+        ciudad.setCharAt(0, Character.toUpperCase(ciudad.charAt(0)));
+        Direccion direccion = new Direccion(0, pais, ciudad.toString(),
+                CALLES[random.nextInt(CALLES.length)] + " del Aeropuerto", 1 + random.nextInt(300));
+        // el número al final hace el nombre único aunque se repitan ciudad y sufijo
+        String nombre = ciudad + SUFIJOS[random.nextInt(SUFIJOS.length)] + " " + numero;
+        Blob imagen = null;
+        if (bytesImagen > 0) {
+            byte[] bytes = new byte[bytesImagen];
+            random.nextBytes(bytes);
+            imagen = new SerialBlob(bytes);
+        }
+        Aeropuerto aeropuerto = new Aeropuerto(0, nombre, 1920 + random.nextInt(105),
+                1_000 * (1 + random.nextInt(80_000)), direccion, imagen);
+        if (random.nextDouble() < proporcionPublicos) {
+            return new AeropuertoPublico(aeropuerto, BigDecimal.valueOf(random.nextLong(100_000_000_000L), 2),
+                    10 + random.nextInt(10_000));
+        }
+        return new AeropuertoPrivado(aeropuerto, 1 + random.nextInt(1_000));
+    }
+
+    /**
+     * Número de aviones de un aeropuerto según la distribución, sin pasar del número de modelos.
+     */
+    private int numeroAviones(Random random) {
+        double numero = switch (distribucion) {
+            case FIJA -> mediaAviones;
+            case UNIFORME -> random.nextDouble() * 2 * mediaAviones;
+            // mínimo xm = media * (alfa - 1) / alfa, para que la media sea la pedida
+            case PARETO -> mediaAviones * (ALFA_PARETO - 1) / ALFA_PARETO
+                    / Math.pow(1 - random.nextDouble(), 1 / ALFA_PARETO);
+        };
+        return (int) Math.min(modelos, Math.round(numero));
+    }
+
+    /**
+     * Lo que se ha generado.
+     */
+    public static final class Resultado {
+        private final int aeropuertos;
+        private final long aviones;
+        private final long nanos;
+
+        Resultado(int aeropuertos, long aviones, long nanos) {
+            this.aeropuertos = aeropuertos;
+            this.aviones = aviones;
+            this.nanos = nanos;
+        }
+
+        public int getAeropuertos() {
+            return aeropuertos;
+        }
+
+        public long getAviones() {
+            return aviones;
+        }
+
+        public double getSegundos() {
+            return nanos / 1_000_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            double segundos = getSegundos();
+            return String.format(Locale.ROOT, "%d aeropuertos y %d aviones en %.1f s (%.0f filas/s)", aeropuertos,
+                    aviones, segundos, segundos == 0 ? 0 : (aeropuertos + aviones) / segundos);
+        }
+    }
+}
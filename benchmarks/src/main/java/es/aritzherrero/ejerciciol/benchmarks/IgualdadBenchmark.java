@@ -0,0 +1,97 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.Direccion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * equals y hashCode de Aeropuerto y Avion. Los de Aeropuerto incluyen la imagen: con un Blob en memoria comparan y
+ * recorren todos sus bytes, así que se miden sin imagen (0) y con una imagen de 256 KB.
+ * Las dos instancias comparadas son iguales pero distintas, que es el caso caro.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IgualdadBenchmark {
+
+    @Param({"0", "262144"})
+    private int bytesImagen;
+
+    private Aeropuerto aeropuerto;
+    private Aeropuerto copiaAeropuerto;
+    private Avion avion;
+    private Avion copiaAvion;
+    private Set<Avion> flota;
+
+    @Setup
+    public void preparar() throws SQLException {
+        byte[] imagen = new byte[bytesImagen];
+        new Random(42).nextBytes(imagen);
+        aeropuerto = nuevoAeropuerto(imagen);
+        copiaAeropuerto = nuevoAeropuerto(imagen.clone());
+        avion = new Avion(1, "A320", 180, 840, true, aeropuerto);
+        copiaAvion = new Avion(1, "A320", 180, 840, true, copiaAeropuerto);
+        flota = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            flota.add(new Avion(i + 2, "Modelo " + i, 180, 840, true, aeropuerto));
+        }
+        flota.add(avion);
+    }
+
+    private static Aeropuerto nuevoAeropuerto(byte[] imagen) throws SQLException {
+        Direccion direccion = new Direccion(1, "España", "Madrid", "Avenida de la Hispanidad", 1);
+        Blob blob = imagen.length == 0 ? null : new SerialBlob(imagen);
+        return new Aeropuerto(1, "Adolfo Suárez Madrid-Barajas", 1931, 70_000_000, direccion, blob);
+    }
+
+    @Benchmark
+    public boolean aeropuertoEquals() {
+        return aeropuerto.equals(copiaAeropuerto);
+    }
+
+    @Benchmark
+    public int aeropuertoHashCode() {
+        return aeropuerto.hashCode();
+    }
+
+    @Benchmark
+    public boolean avionEquals() {
+        return avion.equals(copiaAvion);
+    }
+
+    @Benchmark
+    public int avionHashCode() {
+        return avion.hashCode();
+    }
+
+    /**
+     * Búsqueda en un HashSet de aviones del mismo aeropuerto: hashCode del avión buscado más equals con los
+     * candidatos.
+     */
+    @Benchmark
+    public boolean avionEnHashSet() {
+        return flota.contains(copiaAvion);
+    }
+}
@@ -0,0 +1,106 @@
+package es.aritzherrero.ejerciciol.benchmarks;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formas de llenar una ObservableList como las de los DAO y las tablas. Con un oyente registrado (como el de un
+ * TableView) cada add suelto genera un aviso, mientras que addAll o setAll generan uno solo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ListasBenchmark {
+
+    @Param({"10000", "100000"})
+    private int tamanio;
+
+    private List<Avion> aviones;
+    private ObservableList<Avion> observada;
+    private long avisos;
+
+    @Setup
+    public void preparar() {
+        Aeropuerto aeropuerto = new Aeropuerto(1, "Aeropuerto", 1950, 1000, null, null);
+        aviones = new ArrayList<>(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            aviones.add(new Avion(i + 1, "Modelo " + i, 180, 840, i % 3 != 0, aeropuerto));
+        }
+        observada = FXCollections.observableArrayList();
+        observada.addListener((ListChangeListener<Avion>) cambio -> {
+            while (cambio.next()) {
+                avisos += cambio.getAddedSize();
+            }
+        });
+    }
+
+    /**
+     * Como los bucles de los DAO: observableArrayList y un add por fila.
+     */
+    @Benchmark
+    public ObservableList<Avion> aniadirUnoAUno() {
+        ObservableList<Avion> lista = FXCollections.observableArrayList();
+        for (Avion avion : aviones) {
+            lista.add(avion);
+        }
+        return lista;
+    }
+
+    @Benchmark
+    public ObservableList<Avion> aniadirTodos() {
+        ObservableList<Avion> lista = FXCollections.observableArrayList();
+        lista.addAll(aviones);
+        return lista;
+    }
+
+    /**
+     * Llenar un ArrayList y envolverlo, sin copiar.
+     */
+    @Benchmark
+    public ObservableList<Avion> envolverArrayList() {
+        return FXCollections.observableList(new ArrayList<>(aviones));
+    }
+
+    @Benchmark
+    public long aniadirUnoAUnoConOyente() {
+        observada.clear();
+        for (Avion avion : aviones) {
+            observada.add(avion);
+        }
+        return avisos;
+    }
+
+    @Benchmark
+    public long setAllConOyente() {
+        observada.setAll(aviones);
+        return avisos;
+    }
+
+    @Benchmark
+    public int filtrada() {
+        FilteredList<Avion> activados = new FilteredList<>(FXCollections.observableList(aviones), Avion::isActivado);
+        return activados.size();
+    }
+}
@@ -0,0 +1,53 @@
+-- Esquema de la aplicación para el banco de pruebas (BancoPruebasBD), en H2 con MODE=MySQL.
+-- Las mismas tablas, claves e índices que en MySQL, sin el registro de cambios: SincronizadorCambios no se arranca.
+
+-- H2 no tiene MD5; AeropuertoDAO.getHashImagen lo usa para no transferir la imagen
+CREATE ALIAS MD5 DETERMINISTIC FOR 'es.aritzherrero.ejerciciol.benchmarks.BancoPruebasBD.md5';
+
+CREATE TABLE direcciones (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    pais VARCHAR(100) NOT NULL,
+    ciudad VARCHAR(100) NOT NULL,
+    calle VARCHAR(200) NOT NULL,
+    numero INT NOT NULL
+);
+
+CREATE TABLE aeropuertos (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(200) NOT NULL,
+    anio_inauguracion INT NOT NULL,
+    capacidad INT NOT NULL,
+    id_direccion INT NOT NULL,
+    imagen BLOB NULL,
+    CONSTRAINT fk_aeropuertos_direccion FOREIGN KEY (id_direccion) REFERENCES direcciones (id)
+);
+CREATE INDEX idx_aeropuertos_nombre ON aeropuertos (nombre);
+
+CREATE TABLE aeropuertos_publicos (
+    id_aeropuerto INT NOT NULL PRIMARY KEY,
+    financiacion DECIMAL(15, 2) NOT NULL,
+    num_trabajadores INT NOT NULL,
+    CONSTRAINT fk_publicos_aeropuerto FOREIGN KEY (id_aeropuerto) REFERENCES aeropuertos (id)
+);
+
+CREATE TABLE aeropuertos_privados (
+    id_aeropuerto INT NOT NULL PRIMARY KEY,
+    numero_socios INT NOT NULL,
+    CONSTRAINT fk_privados_aeropuerto FOREIGN KEY (id_aeropuerto) REFERENCES aeropuertos (id)
+);
+
+CREATE TABLE aviones (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    modelo VARCHAR(100) NOT NULL,
+    numero_asientos INT NOT NULL,
+    velocidad_maxima INT NOT NULL,
+    activado BOOLEAN NOT NULL,
+    id_aeropuerto INT NOT NULL,
+    CONSTRAINT fk_aviones_aeropuerto FOREIGN KEY (id_aeropuerto) REFERENCES aeropuertos (id),
+    CONSTRAINT uq_aviones_modelo_aeropuerto UNIQUE (modelo, id_aeropuerto)
+);
+
+CREATE TABLE usuarios (
+    usuario VARCHAR(50) NOT NULL PRIMARY KEY,
+    password VARCHAR(255) NOT NULL
+);
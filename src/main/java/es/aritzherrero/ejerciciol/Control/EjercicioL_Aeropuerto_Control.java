@@ -1,16 +1,25 @@
 package es.aritzherrero.ejerciciol.Control;
 
 import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
-import es.aritzherrero.ejerciciol.DAO.AeropuertoPrivadoDAO;
-import es.aritzherrero.ejerciciol.DAO.AeropuertoPublicoDAO;
 import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.DAO.BusCambios;
+import es.aritzherrero.ejerciciol.DAO.CacheImagenes;
+import es.aritzherrero.ejerciciol.DAO.CargaAsincrona;
+import es.aritzherrero.ejerciciol.DAO.EjecutorDAO;
+import es.aritzherrero.ejerciciol.DAO.EstadisticasFlota;
+import es.aritzherrero.ejerciciol.DAO.EventoCambio;
+import es.aritzherrero.ejerciciol.DAO.IndiceTrigramas;
+import es.aritzherrero.ejerciciol.DAO.ListaPaginada;
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
 import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
 import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.ResumenFlota;
 
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -18,20 +27,32 @@ import javafx.fxml.Initializable;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Window;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Controlador para la gestión de aeropuertos en la aplicación.
  * Permite la visualización, edición, eliminación y adición de aeropuertos.
  */
 public class EjercicioL_Aeropuerto_Control implements Initializable {
+    // a partir de este número de aeropuertos la tabla se pagina en lugar de cargarlos todos
+    private static final int UMBRAL_PAGINACION = Integer.getInteger("ejerciciol.paginacion.umbral", 10_000);
+    private static final int TAMANIO_PAGINA = Integer.getInteger("ejerciciol.paginacion.pagina", 100);
+    private static final int MAX_PAGINAS = Integer.getInteger("ejerciciol.paginacion.maxPaginas", 20);
+    private static final int PAGINA_AVIONES = Integer.getInteger("ejerciciol.info.paginaAviones", 25);
+    private static final ButtonType VER_AVIONES = new ButtonType("Ver aviones", ButtonBar.ButtonData.OTHER);
+    private static final ButtonType SIGUIENTES = new ButtonType("Siguientes", ButtonBar.ButtonData.NEXT_FORWARD);
+    // con la tabla paginada el filtro se busca en la base de datos tras esta pausa sin escribir
+    private static final long ESPERA_BUSQUEDA_MS = Long.getLong("ejerciciol.busqueda.esperaMs", 300L);
+    private static final int LIMITE_BUSQUEDA = Integer.getInteger("ejerciciol.busqueda.limite", 200);
 
     @FXML
     private TableView tabla;
@@ -48,8 +69,19 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
     @FXML
     private MenuItem menuInfoAeropuerto;
 
+    private ObservableList<Object> aeropuertos;
+    private Class<?> tipoMostrado;
+    private boolean paginado;
+    private ListaPaginada<Object> paginada;
+    private final CargaAsincrona<ObservableList<Object>> busqueda = new CargaAsincrona<>();
+    private final PauseTransition pausaBusqueda = new PauseTransition(Duration.millis(ESPERA_BUSQUEDA_MS));
+    private final CargaAsincrona<ObservableList<Object>> cargaAeropuertos = new CargaAsincrona<>();
+    private final CargaAsincrona<InfoAeropuerto> cargaInfo = new CargaAsincrona<>();
     private ObservableList<Object> masterData = FXCollections.observableArrayList();
-    private ObservableList<Object> filteredData = FXCollections.observableArrayList();
+    private FilteredList<Object> filteredData = new FilteredList<>(masterData);
+    private IndiceTrigramas<Object> indiceNombres = new IndiceTrigramas<>(masterData, EjercicioL_Aeropuerto_Control::nombre);
+    // BusCambios guarda los suscriptores con referencias débiles; este campo lo mantiene mientras viva la pantalla
+    private final Consumer<EventoCambio<?>> alCambiar = this::aplicarCambio;
 
     /**
      * Inicializa el controlador. Configura los listeners y carga los datos iniciales.
@@ -67,55 +99,121 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
 
         grupoAeropuertos.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
             if (newToggle == rbPublicos) {
-                try {
-                    cargarPublicos();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                cargarPublicos();
             } else if (newToggle == rbPrivados) {
-                try {
-                    cargarPrivados();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                cargarPrivados();
             }
         });
 
         filtroNombre.textProperty().addListener((observable, oldValue, newValue) -> filtrar());
+        pausaBusqueda.setOnFinished(event -> buscarEnServidor());
+        BusCambios.suscribir(alCambiar);
+
+        // se empiezan a leer los aeropuertos en segundo plano mientras se elige el tipo
+        recargarAeropuertos();
     }
 
     /**
-     * Muestra información sobre el aeropuerto seleccionado en una alerta.
+     * Muestra información sobre el aeropuerto seleccionado en una alerta. El resumen de la flota y la imagen pueden
+     * tener que leerse de la base de datos, así que se piden en segundo plano y la alerta se muestra cuando llegan.
      *
      * @param event Evento de acción.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
     @FXML
-    void infoAeropuerto(ActionEvent event) throws SQLException {
+    void infoAeropuerto(ActionEvent event) {
         Object aeropuerto = tabla.getSelectionModel().getSelectedItem();
         if (aeropuerto == null) {
             alerta("Selecciona un aeropuerto antes de ver su información");
             return;
         }
 
-        String info = generarInfoAeropuerto(aeropuerto);
+        Aeropuerto airport = aeropuertoDe(aeropuerto);
+        cargaInfo.cargar(() -> new InfoAeropuerto(EstadisticasFlota.getResumen(airport), cargarImagen(airport)),
+                info -> mostrarInfo(aeropuerto, info),
+                error -> {
+                    System.err.println(error.getMessage());
+                    alerta("No se pudo leer la información del aeropuerto. Inténtelo de nuevo");
+                });
+    }
 
-        // Mostrar información en una alerta
+    /**
+     * Muestra la alerta con la información del aeropuerto ya leída.
+     *
+     * @param aeropuerto Objeto del aeropuerto seleccionado.
+     * @param info       Resumen de la flota e imagen del aeropuerto.
+     */
+    private void mostrarInfo(Object aeropuerto, InfoAeropuerto info) {
         Alert alerta = new Alert(Alert.AlertType.INFORMATION);
         alerta.setHeaderText(null);
         alerta.setTitle("Información");
-        alerta.setContentText(info);
-        alerta.showAndWait();
+        alerta.setContentText(generarInfoAeropuerto(aeropuerto, info.resumen));
+        if (info.imagen != null) {
+            alerta.setGraphic(new ImageView(info.imagen));
+        }
+        if (info.resumen != null && info.resumen.getTotal() > 0) {
+            alerta.getButtonTypes().add(0, VER_AVIONES);
+        }
+        if (alerta.showAndWait().orElse(ButtonType.OK) == VER_AVIONES) {
+            mostrarAviones(aeropuertoDe(aeropuerto), 0, 0);
+        }
+    }
+
+    /**
+     * Muestra el detalle de los aviones del aeropuerto por páginas; cada página se lee en segundo plano solo al
+     * pedirla, y al pulsar "Siguientes" se pide la siguiente.
+     *
+     * @param airport     Aeropuerto cuyos aviones se muestran.
+     * @param despuesDeId ID del último avión mostrado (0 para la primera página).
+     * @param mostrados   Número de aviones mostrados en las páginas anteriores.
+     */
+    private void mostrarAviones(Aeropuerto airport, int despuesDeId, int mostrados) {
+        EjecutorDAO.ejecutar(() -> AvionDAO.cargarPagina(airport, despuesDeId, PAGINA_AVIONES), aviones -> {
+            if (aviones.isEmpty()) {
+                return;
+            }
+            StringBuilder info = new StringBuilder();
+            for (Avion avion : aviones) {
+                info.append("Modelo: ").append(avion.getModelo())
+                        .append("\n\tNúmero de asientos: ").append(avion.getNumero_asientos())
+                        .append("\n\tVelocidad máxima: ").append(avion.getVelocidad_maxima())
+                        .append(avion.isActivado() ? "\n\tActivado\n" : "\n\tDesactivado\n");
+            }
+            Alert alerta = new Alert(Alert.AlertType.INFORMATION);
+            alerta.setHeaderText(null);
+            alerta.setTitle("Aviones de " + airport.getNombre() + " (" + (mostrados + 1) + "-" + (mostrados + aviones.size()) + ")");
+            alerta.setContentText(info.toString());
+            if (aviones.size() == PAGINA_AVIONES) {
+                alerta.getButtonTypes().add(0, SIGUIENTES);
+            }
+            if (alerta.showAndWait().orElse(ButtonType.OK) == SIGUIENTES) {
+                mostrarAviones(airport, aviones.get(aviones.size() - 1).getId(), mostrados + aviones.size());
+            }
+        }, error -> {
+            System.err.println(error.getMessage());
+            alerta("No se pudieron cargar los aviones del aeropuerto");
+        });
+    }
+
+    /**
+     * Obtiene la imagen del aeropuerto de la caché de imágenes, que solo la lee de la base de datos si no la tiene
+     * en memoria ni en disco. Nunca se lee en los listados. Se llama en segundo plano.
+     *
+     * @param airport Aeropuerto seleccionado.
+     * @return La imagen reducida al tamaño de la alerta, o null si no tiene o no se puede leer.
+     */
+    private static Image cargarImagen(Aeropuerto airport) {
+        return CacheImagenes.getMiniatura(airport, 200);
     }
 
     /**
-     * Genera una cadena con la información detallada del aeropuerto.
+     * Genera una cadena con la información detallada del aeropuerto. De los aviones solo se incluye el resumen;
+     * el detalle se pide aparte.
      *
      * @param aeropuerto Objeto del aeropuerto seleccionado.
+     * @param resumen    Resumen de los aviones del aeropuerto, o null si no se ha podido leer.
      * @return La información formateada del aeropuerto.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
-    private String generarInfoAeropuerto(Object aeropuerto) throws SQLException {
+    private String generarInfoAeropuerto(Object aeropuerto, ResumenFlota resumen) {
         StringBuilder info = new StringBuilder();
 
         Aeropuerto airport = (aeropuerto instanceof AeropuertoPublico)
@@ -130,12 +228,14 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
                 .append("\nCapacidad: ").append(airport.getCapacidad())
                 .append("\nAviones:");
 
-        ObservableList<Avion> aviones = AvionDAO.cargarListado(airport);
-        for (Avion avion : aviones) {
-            info.append("\n\tModelo: ").append(avion.getModelo())
-                    .append("\n\tNúmero de asientos: ").append(avion.getNumero_asientos())
-                    .append("\n\tVelocidad máxima: ").append(avion.getVelocidad_maxima())
-                    .append(avion.isActivado() ? "\n\tActivado" : "\n\tDesactivado");
+        if (resumen == null) {
+            info.append(" no disponible");
+        } else {
+            info.append("\n\tTotal: ").append(resumen.getTotal())
+                    .append("\n\tActivados: ").append(resumen.getActivados())
+                    .append("\n\tDesactivados: ").append(resumen.getDesactivados())
+                    .append("\n\tAsientos: ").append(resumen.getAsientos())
+                    .append("\n\tVelocidad máxima: ").append(resumen.getVelocidadMaxima());
         }
 
         if (aeropuerto instanceof AeropuertoPublico) {
@@ -181,10 +281,9 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
      * Elimina el aeropuerto seleccionado después de confirmar la acción.
      *
      * @param event Evento de acción.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
     @FXML
-    void borrarAeropuerto(ActionEvent event) throws SQLException {
+    void borrarAeropuerto(ActionEvent event) {
         Object aeropuerto = tabla.getSelectionModel().getSelectedItem();
         if (aeropuerto == null) {
             alerta("Selecciona un aeropuerto antes de eliminarlo");
@@ -200,50 +299,24 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
     }
 
     /**
-     * Elimina el aeropuerto y sus aviones asociados de la base de datos.
+     * Elimina el aeropuerto y sus aviones asociados de la base de datos en una sola transacción, en segundo plano.
      *
      * @param aeropuerto Objeto del aeropuerto a eliminar.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
-    private void eliminarAeropuerto(Object aeropuerto) throws SQLException {
-        ObservableList<Avion> aviones = aeropuerto instanceof AeropuertoPublico
-                ? AvionDAO.cargarListado(((AeropuertoPublico) aeropuerto).getAeropuerto())
-                : AvionDAO.cargarListado(((AeropuertoPrivado) aeropuerto).getAeropuerto());
+    private void eliminarAeropuerto(Object aeropuerto) {
+        Aeropuerto airport = aeropuertoDe(aeropuerto);
 
-        for (Avion avion : aviones) {
-            if (!AvionDAO.eliminar(avion)) {
-                alerta("No se pudo eliminar ese aeropuerto. Inténtelo de nuevo");
-                return;
-            }
-        }
-
-        Aeropuerto airport = aeropuerto instanceof AeropuertoPublico
-                ? ((AeropuertoPublico) aeropuerto).getAeropuerto()
-                : ((AeropuertoPrivado) aeropuerto).getAeropuerto();
-
-        if (eliminarAeropuertoEnBD(aeropuerto)) {
-            if (AeropuertoDAO.eliminar(airport)) {
-                if (aeropuerto instanceof AeropuertoPublico) cargarPublicos(); else cargarPrivados();
+        // la fila se quita de la tabla al llegar el evento de BusCambios
+        EjecutorDAO.ejecutar(() -> AeropuertoDAO.eliminarEnCascada(airport), eliminado -> {
+            if (eliminado) {
                 confirmacion("Aeropuerto eliminado correctamente");
             } else {
                 alerta("No se pudo eliminar ese aeropuerto. Inténtelo de nuevo");
             }
-        } else {
+        }, error -> {
+            System.err.println(error.getMessage());
             alerta("No se pudo eliminar ese aeropuerto. Inténtelo de nuevo");
-        }
-    }
-
-    /**
-     * Elimina el aeropuerto en la base de datos.
-     *
-     * @param aeropuerto Objeto del aeropuerto a eliminar.
-     * @return true si la eliminación fue exitosa, false en caso contrario.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
-     */
-    private boolean eliminarAeropuertoEnBD(Object aeropuerto) throws SQLException {
-        return aeropuerto instanceof AeropuertoPublico
-                ? AeropuertoPublicoDAO.eliminar((AeropuertoPublico) aeropuerto)
-                : AeropuertoPrivadoDAO.eliminar((AeropuertoPrivado) aeropuerto);
+        });
     }
 
     /**
@@ -296,27 +369,240 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
     }
 
     /**
-     * Carga la lista de aeropuertos públicos desde la base de datos.
+     * Vuelve a leer de la base de datos los aeropuertos de ambos tipos en una sola consulta, en segundo plano.
+     * Si hay más de {@link #UMBRAL_PAGINACION}, no se cargan: la tabla pasa a leerlos por páginas.
+     * Al terminar vuelve a mostrar el tipo seleccionado. Si ya había una lectura en marcha, se cancela.
+     */
+    public void recargarAeropuertos() {
+        tabla.setPlaceholder(new Label("Cargando aeropuertos..."));
+        cargaAeropuertos.cargar(() -> {
+            int total = AeropuertoDAO.contarTipados(AeropuertoPublico.class)
+                    + AeropuertoDAO.contarTipados(AeropuertoPrivado.class);
+            return total > UMBRAL_PAGINACION ? null : AeropuertoDAO.cargarListadoTipado();
+        }, lista -> {
+            paginado = lista == null;
+            aeropuertos = lista;
+            // en memoria se filtra por "contiene"; en la base de datos, por prefijo para poder usar el índice
+            filtroNombre.setPromptText(paginado ? "Empieza por..." : "Contiene...");
+            if (!paginado && paginada != null) {
+                paginada.cerrar();
+                paginada = null;
+            }
+            tabla.setPlaceholder(null);
+            if (tipoMostrado != null) {
+                mostrarTipo(tipoMostrado);
+            }
+        }, error -> {
+            tabla.setPlaceholder(null);
+            System.err.println(error.getMessage());
+            alerta("No se pudieron cargar los aeropuertos. Inténtelo de nuevo");
+        });
+    }
+
+    /**
+     * Muestra los aeropuertos públicos. Solo consulta la base de datos si todavía no se han cargado.
+     */
+    public void cargarPublicos() {
+        mostrarTipo(AeropuertoPublico.class);
+    }
+
+    /**
+     * Muestra los aeropuertos privados. Solo consulta la base de datos si todavía no se han cargado.
+     */
+    public void cargarPrivados() {
+        mostrarTipo(AeropuertoPrivado.class);
+    }
+
+    /**
+     * Rellena la tabla con los aeropuertos cargados del tipo indicado y vuelve a aplicar el filtro de nombre.
+     * Si todavía no se han cargado, lanza la carga y los muestra cuando llegan. Si hay demasiados para cargarlos,
+     * la tabla se respalda con una lista que los lee por páginas según se desplaza.
+     *
+     * @param tipo AeropuertoPublico.class o AeropuertoPrivado.class.
+     */
+    private void mostrarTipo(Class<?> tipo) {
+        tipoMostrado = tipo;
+        if (paginado) {
+            if (paginada != null) {
+                paginada.cerrar();
+            }
+            paginada = new ListaPaginada<>(AeropuertoDAO.fuenteTipada(tipo), TAMANIO_PAGINA, MAX_PAGINAS);
+            filtrar();
+            return;
+        }
+        if (aeropuertos == null) {
+            masterData.clear();
+            indiceNombres = new IndiceTrigramas<>(masterData, EjercicioL_Aeropuerto_Control::nombre);
+            filtrar();
+            if (!cargaAeropuertos.enCurso()) {
+                recargarAeropuertos();
+            }
+            return;
+        }
+        masterData.setAll(aeropuertos.filtered(tipo::isInstance));
+        indiceNombres = new IndiceTrigramas<>(masterData, EjercicioL_Aeropuerto_Control::nombre);
+        filtrar();
+    }
+
+    /**
+     * Aplica a la tabla un cambio guardado por los DAO (aquí o en la ventana de datos del aeropuerto) sin volver a
+     * leer el listado: la fila afectada se sustituye, se añade o se quita en su sitio, de modo que la tabla conserva
+     * la selección y el desplazamiento.
      *
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
+     * @param evento Cambio publicado por {@link BusCambios}.
+     */
+    private void aplicarCambio(EventoCambio<?> evento) {
+        Class<?> entidad = evento.getEntidad();
+        if (entidad != Aeropuerto.class && entidad != AeropuertoPublico.class && entidad != AeropuertoPrivado.class) {
+            return;
+        }
+        if (cargaAeropuertos.enCurso()) {
+            // la lectura en marcha puede haberse hecho antes del cambio
+            recargarAeropuertos();
+            return;
+        }
+        if (paginado) {
+            aplicarCambioPaginado(evento);
+            return;
+        }
+        if (aeropuertos == null) {
+            return;
+        }
+        Object actual = buscarPorId(aeropuertos, evento.getId());
+        Object nuevo = filaCambiada(actual, evento);
+        if (actual == null && nuevo == null) {
+            return;
+        }
+        reemplazarFila(aeropuertos, actual, nuevo);
+
+        boolean seleccionado = actual != null && tabla.getSelectionModel().getSelectedItem() == actual;
+        int posicion = actual == null ? -1 : masterData.indexOf(actual);
+        if (posicion >= 0) {
+            indiceNombres.quitar(actual);
+        }
+        if (nuevo != null && tipoMostrado != null && tipoMostrado.isInstance(nuevo)) {
+            // el filtro de nombre vigente también vale para filas añadidas al índice después de buscar
+            indiceNombres.aniadir(nuevo);
+            if (posicion >= 0) {
+                masterData.set(posicion, nuevo);
+            } else {
+                masterData.add(nuevo);
+            }
+            if (seleccionado) {
+                tabla.getSelectionModel().select(nuevo);
+            }
+        } else if (posicion >= 0) {
+            masterData.remove(posicion);
+        }
+    }
+
+    /**
+     * Con la tabla paginada no se tienen todos los aeropuertos en memoria: una modificación se aplica a la fila si
+     * su página está cargada; una alta o una baja desplaza las filas siguientes, así que se vuelve a contar y se
+     * releen solo las páginas visibles. Los resultados de una búsqueda se actualizan en su lista.
      */
-    public void cargarPublicos() throws SQLException {
-        limpiarTabla();
-        ObservableList<AeropuertoPublico> aeropuertos = AeropuertoPublicoDAO.cargarListado();
-        masterData.setAll(aeropuertos);
-        tabla.setItems(aeropuertos);
+    private void aplicarCambioPaginado(EventoCambio<?> evento) {
+        if (tabla.getItems() != paginada) {
+            ObservableList<Object> resultados = tabla.getItems();
+            Object actual = buscarPorId(resultados, evento.getId());
+            if (actual != null) {
+                reemplazarFila(resultados, actual, filaCambiada(actual, evento));
+            }
+        }
+        if (paginada == null) {
+            return;
+        }
+        if (evento.getTipo() == EventoCambio.Tipo.MODIFICADO) {
+            paginada.reemplazar(evento.getId(), actual -> {
+                Object nuevo = filaCambiada(actual, evento);
+                return nuevo != null ? nuevo : actual;
+            });
+        } else if (evento.getEntidad() == tipoMostrado
+                || (evento.getEntidad() == Aeropuerto.class && evento.getTipo() == EventoCambio.Tipo.ELIMINADO)) {
+            paginada.refrescar();
+        }
     }
 
     /**
-     * Carga la lista de aeropuertos privados desde la base de datos.
+     * Calcula cómo queda una fila tras un cambio. Un cambio en la tabla aeropuertos conserva los datos del tipo
+     * y uno en aeropuertos_publicos o aeropuertos_privados conserva los datos comunes de la fila que se tenía.
      *
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
+     * @param actual Fila que se tenía, o null si no se tenía.
+     * @param evento Cambio publicado.
+     * @return La fila nueva, o null si ya no debe mostrarse o no hay con qué construirla.
      */
-    public void cargarPrivados() throws SQLException {
-        limpiarTabla();
-        ObservableList<AeropuertoPrivado> aeropuertos = AeropuertoPrivadoDAO.cargarListado();
-        masterData.setAll(aeropuertos);
-        tabla.setItems(aeropuertos);
+    private static Object filaCambiada(Object actual, EventoCambio<?> evento) {
+        if (evento.getTipo() == EventoCambio.Tipo.ELIMINADO) {
+            return null;
+        }
+        Aeropuerto cambiado = evento.getValor(Aeropuerto.class);
+        if (cambiado != null) {
+            // un aeropuerto recién creado sin tipo todavía no se muestra
+            if (actual == null) {
+                return null;
+            }
+            // el valor del evento lo comparten todos los suscriptores, así que no se modifica
+            Aeropuerto airport = new Aeropuerto(evento.getId(), cambiado.getNombre(), cambiado.getAnio_inauguracion(),
+                    cambiado.getCapacidad(), cambiado.getDireccion(), cambiado.getImagen());
+            airport.setImagenDiferida(cambiado.getImagenDiferida());
+            if (actual instanceof AeropuertoPublico) {
+                AeropuertoPublico publico = (AeropuertoPublico) actual;
+                return new AeropuertoPublico(airport, publico.getFinanciacion(), publico.getNum_trabajadores());
+            }
+            return new AeropuertoPrivado(airport, ((AeropuertoPrivado) actual).getNumero_socios());
+        }
+        if (actual == null) {
+            return evento.getTipo() == EventoCambio.Tipo.CREADO ? evento.getValor() : null;
+        }
+        AeropuertoPublico publico = evento.getValor(AeropuertoPublico.class);
+        if (publico != null) {
+            return new AeropuertoPublico(aeropuertoDe(actual), publico.getFinanciacion(), publico.getNum_trabajadores());
+        }
+        return new AeropuertoPrivado(aeropuertoDe(actual), evento.getValor(AeropuertoPrivado.class).getNumero_socios());
+    }
+
+    /**
+     * Sustituye, añade o quita una fila en su sitio.
+     *
+     * @param lista  Lista de filas.
+     * @param actual Fila que se tenía, o null para añadir.
+     * @param nuevo  Fila nueva, o null para quitar.
+     */
+    private static void reemplazarFila(ObservableList<Object> lista, Object actual, Object nuevo) {
+        int posicion = actual == null ? -1 : lista.indexOf(actual);
+        if (posicion < 0) {
+            if (nuevo != null) {
+                lista.add(nuevo);
+            }
+        } else if (nuevo != null) {
+            lista.set(posicion, nuevo);
+        } else {
+            lista.remove(posicion);
+        }
+    }
+
+    /**
+     * @return El aeropuerto de la lista con ese ID, o null si no está.
+     */
+    private static Object buscarPorId(ObservableList<Object> lista, int id) {
+        for (Object aeropuerto : lista) {
+            if (aeropuerto != null && aeropuertoDe(aeropuerto).getId() == id) {
+                return aeropuerto;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve los datos comunes de un aeropuerto público o privado.
+     *
+     * @param aeropuerto Objeto del aeropuerto.
+     * @return Su Aeropuerto.
+     */
+    private static Aeropuerto aeropuertoDe(Object aeropuerto) {
+        return (aeropuerto instanceof AeropuertoPublico)
+                ? ((AeropuertoPublico) aeropuerto).getAeropuerto()
+                : ((AeropuertoPrivado) aeropuerto).getAeropuerto();
     }
 
     /**
@@ -332,27 +618,59 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
 
     /**
      * Filtra la lista de aeropuertos basada en el texto ingresado en el campo de filtro.
+     * La búsqueda se hace en el índice de nombres, que afina el resultado anterior mientras se sigue escribiendo,
+     * y la tabla se actualiza cambiando el filtro de la FilteredList en lugar de volver a llenar una lista.
+     * Con la tabla paginada, la búsqueda se hace en la base de datos cuando se deja de escribir.
      */
     public void filtrar() {
-        String valor = filtroNombre.getText().toLowerCase();
-
-        if (valor.isEmpty()) {
-            tabla.setItems(masterData);
-        } else {
-            filteredData.clear();
-            for (Object aeropuerto : masterData) {
-                String nombre = (aeropuerto instanceof AeropuertoPublico)
-                        ? ((AeropuertoPublico) aeropuerto).getAeropuerto().getNombre()
-                        : ((AeropuertoPrivado) aeropuerto).getAeropuerto().getNombre();
-
-                if (nombre.toLowerCase().contains(valor)) {
-                    filteredData.add(aeropuerto);
+        if (paginado) {
+            // con la tabla paginada no se tienen todos los nombres en memoria: se busca en la base de datos
+            busqueda.cancelar();
+            if (filtroNombre.getText().isBlank()) {
+                pausaBusqueda.stop();
+                if (paginada != null) {
+                    tabla.setItems(paginada);
                 }
+            } else {
+                pausaBusqueda.playFromStart();
             }
+            return;
+        }
+        filteredData.setPredicate(indiceNombres.filtro(filtroNombre.getText()));
+        if (tabla.getItems() != filteredData) {
             tabla.setItems(filteredData);
         }
     }
 
+    /**
+     * Busca en la base de datos los aeropuertos del tipo mostrado cuyo nombre empieza por el texto del filtro.
+     * La búsqueda por prefijo es la que puede usar el índice de nombres de la base de datos; el campo de filtro lo
+     * indica mientras la tabla está paginada.
+     * Cada nueva búsqueda cancela la anterior, de modo que a la tabla solo llega el resultado de la última.
+     */
+    private void buscarEnServidor() {
+        String valor = filtroNombre.getText().trim();
+        Class<?> tipo = tipoMostrado;
+        if (!paginado || valor.isEmpty() || tipo == null) {
+            return;
+        }
+        busqueda.cargar(() -> AeropuertoDAO.buscarPorNombre(valor, tipo, LIMITE_BUSQUEDA),
+                resultados -> tabla.setItems(resultados),
+                error -> System.err.println(error.getMessage()));
+    }
+
+    /**
+     * Devuelve el nombre de un aeropuerto público o privado.
+     *
+     * @param aeropuerto Objeto del aeropuerto.
+     * @return Su nombre.
+     */
+    private static String nombre(Object aeropuerto) {
+        return (aeropuerto instanceof AeropuertoPublico)
+                ? ((AeropuertoPublico) aeropuerto).getAeropuerto().getNombre()
+                : ((AeropuertoPrivado) aeropuerto).getAeropuerto().getNombre();
+    }
+
     /**
      * Muestra una alerta con un mensaje de error.
      *
@@ -380,10 +698,16 @@ public class EjercicioL_Aeropuerto_Control implements Initializable {
     }
 
     /**
-     * Limpia todos los elementos de la tabla.
+     * Lo que se lee en segundo plano para la alerta de información de un aeropuerto.
      */
-    private void limpiarTabla() {
-        tabla.getItems().clear();
+    private static final class InfoAeropuerto {
+        final ResumenFlota resumen;
+        final Image imagen;
+
+        InfoAeropuerto(ResumenFlota resumen, Image imagen) {
+            this.resumen = resumen;
+            this.imagen = imagen;
+        }
     }
 }
 
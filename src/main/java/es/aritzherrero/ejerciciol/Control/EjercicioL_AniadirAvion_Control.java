@@ -1,10 +1,10 @@
 package es.aritzherrero.ejerciciol.Control;
 
-import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
 import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.DAO.CatalogoAeropuertos;
+import es.aritzherrero.ejerciciol.DAO.EjecutorDAO;
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.Avion;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,7 +12,6 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
 
 /**
@@ -37,21 +36,18 @@ public class EjercicioL_AniadirAvion_Control implements Initializable {
     private TextField campoVelMax; // Campo de texto para la velocidad máxima del avión
 
     /**
-     * Inicializa el controlador. Carga la lista de aeropuertos en el ComboBox.
+     * Inicializa el controlador. Carga la lista de aeropuertos en el ComboBox en segundo plano, porque si el catálogo
+     * no está en memoria se lee de la base de datos.
      *
      * @param location  URL para localizar recursos.
      * @param resources El conjunto de recursos que contiene el controlador.
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        ObservableList<Aeropuerto> listaAeropuertos;
-        try {
-            listaAeropuertos = AeropuertoDAO.cargarListado(); // Cargar lista de aeropuertos desde la base de datos
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        comboAeropuerto.setItems(listaAeropuertos); // Asignar la lista de aeropuertos al ComboBox
-        comboAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto por defecto
+        EjecutorDAO.ejecutar(CatalogoAeropuertos::getListado, listaAeropuertos -> {
+            comboAeropuerto.setItems(listaAeropuertos); // Asignar la lista de aeropuertos al ComboBox
+            comboAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto por defecto
+        }, error -> mostrarAlerta("No se pudieron cargar los aeropuertos."));
     }
 
     /**
@@ -66,13 +62,13 @@ public class EjercicioL_AniadirAvion_Control implements Initializable {
     }
 
     /**
-     * Guarda la información del nuevo avión ingresada por el usuario.
+     * Guarda la información del nuevo avión ingresada por el usuario. Los datos se validan aquí; la comprobación de
+     * que el modelo no exista y la inserción se hacen en segundo plano.
      *
      * @param event Evento de acción al hacer clic en el botón de guardar.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
     @FXML
-    void guardar(ActionEvent event) throws SQLException {
+    void guardar(ActionEvent event) {
         String mensajeError = "";
         int cantidadAsientos = 0;
         int velocidadMaxima = 0;
@@ -108,6 +104,12 @@ public class EjercicioL_AniadirAvion_Control implements Initializable {
             }
         }
 
+        // Validar el aeropuerto
+        if (comboAeropuerto.getSelectionModel().getSelectedItem() == null) {
+            mensajeError += mensajeError.isEmpty() ? "" : "\n";
+            mensajeError += "Selecciona un aeropuerto.";
+        }
+
         // Si hay errores de validación, mostrar alerta
         if (!mensajeError.isEmpty()) {
             mostrarAlerta(mensajeError);
@@ -120,21 +122,19 @@ public class EjercicioL_AniadirAvion_Control implements Initializable {
             nuevoAvion.setActivado(radioActivado.isSelected());
             nuevoAvion.setAeropuerto(comboAeropuerto.getSelectionModel().getSelectedItem());
 
-            // Verificar si el avión ya existe en el aeropuerto
-            ObservableList<Avion> listaAviones = AvionDAO.cargarListado();
-            if (listaAviones.contains(nuevoAvion)) {
-                mostrarAlerta("Este modelo ya existe en el aeropuerto. Elige otro modelo u otro aeropuerto.");
-            } else {
-                // Intentar insertar el nuevo avión en la base de datos
-                int resultadoInsercion = AvionDAO.insertar(nuevoAvion);
-                if (resultadoInsercion == -1) {
+            // Verificar si el avión ya existe en el aeropuerto e intentar insertarlo; null si ya existe
+            EjecutorDAO.ejecutar(() -> AvionDAO.existe(nuevoAvion.getModelo(), nuevoAvion.getAeropuerto().getId())
+                    ? null : AvionDAO.insertar(nuevoAvion), resultadoInsercion -> {
+                if (resultadoInsercion == null) {
+                    mostrarAlerta("Este modelo ya existe en el aeropuerto. Elige otro modelo u otro aeropuerto.");
+                } else if (resultadoInsercion == -1) {
                     mostrarAlerta("Error al insertar el avión. Inténtalo de nuevo.");
                 } else {
                     mostrarConfirmacion("¡Avión insertado correctamente!"); // Confirmar inserción exitosa
                     Stage ventana = (Stage) campoAsientos.getScene().getWindow(); // Cerrar la ventana actual
                     ventana.close();
                 }
-            }
+            }, error -> mostrarAlerta("Error al insertar el avión. Inténtalo de nuevo."));
         }
     }
 
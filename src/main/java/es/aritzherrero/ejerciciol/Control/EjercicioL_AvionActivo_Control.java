@@ -1,7 +1,11 @@
 package es.aritzherrero.ejerciciol.Control;
 
-import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
 import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.DAO.BusCambios;
+import es.aritzherrero.ejerciciol.DAO.CargaAsincrona;
+import es.aritzherrero.ejerciciol.DAO.CatalogoAeropuertos;
+import es.aritzherrero.ejerciciol.DAO.EjecutorDAO;
+import es.aritzherrero.ejerciciol.DAO.EventoCambio;
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.Avion;
 import javafx.beans.value.ChangeListener;
@@ -17,8 +21,8 @@ import javafx.scene.control.ToggleGroup;
 import javafx.stage.Stage;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Controlador para la interfaz de modificación del estado (activado/desactivado) de un avión.
@@ -38,6 +42,9 @@ public class EjercicioL_AvionActivo_Control implements Initializable {
     @FXML
     private ToggleGroup rbGroup; // Grupo de Toggle para los RadioButtons
 
+    private final CargaAsincrona<ObservableList<Avion>> cargaAviones = new CargaAsincrona<>(); // Carga de los aviones del aeropuerto seleccionado
+    private final Consumer<EventoCambio<?>> alCambiar = this::aplicarCambio; // Suscripción a BusCambios, que solo guarda una referencia débil
+
     /**
      * Inicializa el controlador. Carga la lista de aeropuertos y establece listeners
      * para actualizar la lista de aviones y el estado del avión seleccionado.
@@ -47,31 +54,20 @@ public class EjercicioL_AvionActivo_Control implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        ObservableList<Aeropuerto> aeropuertos;
-        try {
-            aeropuertos = AeropuertoDAO.cargarListado(); // Cargar la lista de aeropuertos desde la base de datos
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        cbAeropuerto.setItems(aeropuertos); // Asignar la lista de aeropuertos al ComboBox
-        cbAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto por defecto
-
         cbAeropuerto.valueProperty().addListener(new ChangeListener<Aeropuerto>() {
             @Override
             public void changed(ObservableValue<? extends Aeropuerto> observableValue, Aeropuerto oldValue, Aeropuerto newValue) {
-                try {
-                    cambioAeropuerto(newValue); // Cambiar la lista de aviones al seleccionar un nuevo aeropuerto
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                cambioAeropuerto(newValue); // Cambiar la lista de aviones al seleccionar un nuevo aeropuerto
             }
         });
 
-        try {
-            cambioAeropuerto(cbAeropuerto.getSelectionModel().getSelectedItem()); // Inicializar la lista de aviones
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        // Si el catálogo no está en memoria se lee de la base de datos, así que se pide en segundo plano
+        EjecutorDAO.ejecutar(CatalogoAeropuertos::getListado, aeropuertos -> {
+            cbAeropuerto.setItems(aeropuertos); // Asignar la lista de aeropuertos al ComboBox
+            cbAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto, lo que carga sus aviones
+        }, error -> alerta("No se pudieron cargar los aeropuertos"));
+
+        BusCambios.suscribir(alCambiar); // Aplicar a la lista los aviones que guarden este u otros clientes
 
         cbAvion.valueProperty().addListener(new ChangeListener<Avion>() {
             @Override
@@ -82,16 +78,20 @@ public class EjercicioL_AvionActivo_Control implements Initializable {
     }
 
     /**
-     * Actualiza la lista de aviones en función del aeropuerto seleccionado.
+     * Actualiza la lista de aviones en función del aeropuerto seleccionado. Los aviones se cargan en segundo plano;
+     * si se cambia de aeropuerto antes de que lleguen, la carga anterior se cancela.
      *
      * @param aeropuerto El aeropuerto seleccionado.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
-    public void cambioAeropuerto(Aeropuerto aeropuerto) throws SQLException {
+    public void cambioAeropuerto(Aeropuerto aeropuerto) {
+        cbAvion.getItems().clear(); // Vaciar el ComboBox mientras se cargan los aviones del nuevo aeropuerto
         if (aeropuerto != null) {
-            ObservableList<Avion> aviones = AvionDAO.cargarListado(aeropuerto); // Cargar la lista de aviones del aeropuerto
-            cbAvion.setItems(aviones); // Asignar la lista de aviones al ComboBox
-            cbAvion.getSelectionModel().select(0); // Seleccionar el primer avión por defecto
+            cargaAviones.cargar(() -> AvionDAO.cargarListado(aeropuerto), aviones -> { // Cargar la lista de aviones del aeropuerto
+                cbAvion.setItems(aviones); // Asignar la lista de aviones al ComboBox
+                cbAvion.getSelectionModel().select(0); // Seleccionar el primer avión por defecto
+            }, error -> alerta("No se pudieron cargar los aviones del aeropuerto"));
+        } else {
+            cargaAviones.cancelar();
         }
     }
 
@@ -108,6 +108,36 @@ public class EjercicioL_AvionActivo_Control implements Initializable {
         }
     }
 
+    /**
+     * Aplica un cambio de avión guardado por este u otro cliente a la lista de aviones del aeropuerto seleccionado,
+     * sustituyendo, añadiendo o quitando solo ese avión. Si se elimina un aeropuerto, se quitan él y sus aviones.
+     *
+     * @param evento El cambio publicado por BusCambios.
+     */
+    private void aplicarCambio(EventoCambio<?> evento) {
+        if (evento.getEntidad() == Aeropuerto.class && evento.getTipo() == EventoCambio.Tipo.ELIMINADO) {
+            // Sus aviones se borran con él y no llegan uno a uno
+            cbAvion.getItems().removeIf(avion -> avion.getAeropuerto().getId() == evento.getId());
+            cbAeropuerto.getItems().removeIf(eliminado -> eliminado.getId() == evento.getId());
+            return;
+        }
+        Aeropuerto aeropuerto = cbAeropuerto.getSelectionModel().getSelectedItem();
+        if (aeropuerto == null || evento.getEntidad() != Avion.class) {
+            return;
+        }
+        if (cargaAviones.enCurso()) {
+            cambioAeropuerto(aeropuerto); // La carga en marcha puede haberse leído antes del cambio
+            return;
+        }
+        Avion seleccionado = cbAvion.getValue();
+        evento.aplicar(Avion.class, cbAvion.getItems(), Avion::getId,
+                avion -> avion.getAeropuerto().getId() == aeropuerto.getId());
+        Avion nuevo = evento.getValor(Avion.class);
+        if (seleccionado != null && seleccionado.getId() == evento.getId() && cbAvion.getItems().contains(nuevo)) {
+            cbAvion.setValue(nuevo); // Mantener seleccionado el avión cambiado
+        }
+    }
+
     /**
      * Cancela la operación y cierra la ventana actual.
      *
@@ -120,27 +150,32 @@ public class EjercicioL_AvionActivo_Control implements Initializable {
     }
 
     /**
-     * Guarda los cambios realizados en el estado del avión seleccionado y muestra una
+     * Guarda los cambios realizados en el estado del avión seleccionado en segundo plano y muestra una
      * confirmación o error.
      *
      * @param event Evento de acción al hacer clic en el botón de guardar.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
     @FXML
-    void guardar(ActionEvent event) throws SQLException {
+    void guardar(ActionEvent event) {
         boolean activado = rbActivado.isSelected(); // Obtener el estado del avión
         Avion avion = cbAvion.getSelectionModel().getSelectedItem(); // Obtener el avión seleccionado
+        if (avion == null) {
+            alerta("Selecciona un avión.");
+            return;
+        }
         Avion avionNuevo = new Avion(avion.getId(), avion.getModelo(), avion.getNumero_asientos(),
                 avion.getVelocidad_maxima(), activado, avion.getAeropuerto()); // Crear un nuevo objeto Avion
-        boolean resultado = AvionDAO.modificar(avion, avionNuevo); // Intentar modificar el avión en la base de datos
 
-        if (resultado) {
-            confirmacion("Avión modificado correctamente"); // Mostrar confirmación de modificación
-            Stage stage = (Stage) cbAeropuerto.getScene().getWindow(); // Cerrar la ventana actual
-            stage.close();
-        } else {
-            alerta("Ha habido un error actualizando el avión. Por favor, inténtalo de nuevo"); // Mostrar alerta de error
-        }
+        // Intentar modificar el avión en la base de datos
+        EjecutorDAO.ejecutar(() -> AvionDAO.modificar(avion, avionNuevo), resultado -> {
+            if (resultado) {
+                confirmacion("Avión modificado correctamente"); // Mostrar confirmación de modificación
+                Stage stage = (Stage) cbAeropuerto.getScene().getWindow(); // Cerrar la ventana actual
+                stage.close();
+            } else {
+                alerta("Ha habido un error actualizando el avión. Por favor, inténtalo de nuevo"); // Mostrar alerta de error
+            }
+        }, error -> alerta("Ha habido un error actualizando el avión. Por favor, inténtalo de nuevo"));
     }
 
     /**
@@ -1,7 +1,11 @@
 package es.aritzherrero.ejerciciol.Control;
 
-import es.aritzherrero.ejerciciol.DAO.AeropuertoDAO;
 import es.aritzherrero.ejerciciol.DAO.AvionDAO;
+import es.aritzherrero.ejerciciol.DAO.BusCambios;
+import es.aritzherrero.ejerciciol.DAO.CargaAsincrona;
+import es.aritzherrero.ejerciciol.DAO.CatalogoAeropuertos;
+import es.aritzherrero.ejerciciol.DAO.EjecutorDAO;
+import es.aritzherrero.ejerciciol.DAO.EventoCambio;
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.Avion;
 import javafx.beans.value.ChangeListener;
@@ -15,8 +19,8 @@ import javafx.scene.control.ComboBox;
 import javafx.stage.Stage;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Controlador para la interfaz de eliminar un avión de un aeropuerto.
@@ -29,6 +33,9 @@ public class EjercicioL_BorrarAvion_Control implements Initializable {
     @FXML
     private ComboBox<Avion> cbAvion; // ComboBox para seleccionar el avión
 
+    private final CargaAsincrona<ObservableList<Avion>> cargaAviones = new CargaAsincrona<>(); // Carga de los aviones del aeropuerto seleccionado
+    private final Consumer<EventoCambio<?>> alCambiar = this::aplicarCambio; // Suscripción a BusCambios, que solo guarda una referencia débil
+
     /**
      * Inicializa el controlador. Carga la lista de aeropuertos en el ComboBox
      * y establece un listener para actualizar los aviones al cambiar de aeropuerto.
@@ -38,42 +45,65 @@ public class EjercicioL_BorrarAvion_Control implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        ObservableList<Aeropuerto> aeropuertos;
-        try {
-            aeropuertos = AeropuertoDAO.cargarListado(); // Cargar la lista de aeropuertos desde la base de datos
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        cbAeropuerto.setItems(aeropuertos); // Asignar la lista de aeropuertos al ComboBox
-        cbAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto por defecto
         cbAeropuerto.valueProperty().addListener(new ChangeListener<Aeropuerto>() {
             @Override
             public void changed(ObservableValue<? extends Aeropuerto> observableValue, Aeropuerto oldValue, Aeropuerto newValue) {
-                try {
-                    cambioAeropuerto(newValue); // Cambiar aviones al seleccionar un nuevo aeropuerto
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                cambioAeropuerto(newValue); // Cambiar aviones al seleccionar un nuevo aeropuerto
             }
         });
-        try {
-            cambioAeropuerto(cbAeropuerto.getSelectionModel().getSelectedItem()); // Inicializar la lista de aviones
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        // Si el catálogo no está en memoria se lee de la base de datos, así que se pide en segundo plano
+        EjecutorDAO.ejecutar(CatalogoAeropuertos::getListado, aeropuertos -> {
+            cbAeropuerto.setItems(aeropuertos); // Asignar la lista de aeropuertos al ComboBox
+            cbAeropuerto.getSelectionModel().select(0); // Seleccionar el primer aeropuerto, lo que carga sus aviones
+        }, error -> alerta("No se pudieron cargar los aeropuertos"));
+        BusCambios.suscribir(alCambiar); // Aplicar a la lista los aviones que guarden este u otros clientes
     }
 
     /**
-     * Actualiza la lista de aviones en función del aeropuerto seleccionado.
+     * Actualiza la lista de aviones en función del aeropuerto seleccionado. Los aviones se cargan en segundo plano;
+     * si se cambia de aeropuerto antes de que lleguen, la carga anterior se cancela.
      *
      * @param aeropuerto El aeropuerto seleccionado.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
-    public void cambioAeropuerto(Aeropuerto aeropuerto) throws SQLException {
+    public void cambioAeropuerto(Aeropuerto aeropuerto) {
+        cbAvion.getItems().clear(); // Vaciar el ComboBox mientras se cargan los aviones del nuevo aeropuerto
         if (aeropuerto != null) {
-            ObservableList<Avion> aviones = AvionDAO.cargarListado(aeropuerto); // Cargar la lista de aviones del aeropuerto
-            cbAvion.setItems(aviones); // Asignar la lista de aviones al ComboBox
-            cbAvion.getSelectionModel().select(0); // Seleccionar el primer avión por defecto
+            cargaAviones.cargar(() -> AvionDAO.cargarListado(aeropuerto), aviones -> { // Cargar la lista de aviones del aeropuerto
+                cbAvion.setItems(aviones); // Asignar la lista de aviones al ComboBox
+                cbAvion.getSelectionModel().select(0); // Seleccionar el primer avión por defecto
+            }, error -> alerta("No se pudieron cargar los aviones del aeropuerto"));
+        } else {
+            cargaAviones.cancelar();
+        }
+    }
+
+    /**
+     * Aplica un cambio de avión guardado por este u otro cliente a la lista de aviones del aeropuerto seleccionado,
+     * sustituyendo, añadiendo o quitando solo ese avión. Si se elimina un aeropuerto, se quitan él y sus aviones.
+     *
+     * @param evento El cambio publicado por BusCambios.
+     */
+    private void aplicarCambio(EventoCambio<?> evento) {
+        if (evento.getEntidad() == Aeropuerto.class && evento.getTipo() == EventoCambio.Tipo.ELIMINADO) {
+            // Sus aviones se borran con él y no llegan uno a uno
+            cbAvion.getItems().removeIf(avion -> avion.getAeropuerto().getId() == evento.getId());
+            cbAeropuerto.getItems().removeIf(eliminado -> eliminado.getId() == evento.getId());
+            return;
+        }
+        Aeropuerto aeropuerto = cbAeropuerto.getSelectionModel().getSelectedItem();
+        if (aeropuerto == null || evento.getEntidad() != Avion.class) {
+            return;
+        }
+        if (cargaAviones.enCurso()) {
+            cambioAeropuerto(aeropuerto); // La carga en marcha puede haberse leído antes del cambio
+            return;
+        }
+        Avion seleccionado = cbAvion.getValue();
+        evento.aplicar(Avion.class, cbAvion.getItems(), Avion::getId,
+                avion -> avion.getAeropuerto().getId() == aeropuerto.getId());
+        Avion nuevo = evento.getValor(Avion.class);
+        if (seleccionado != null && seleccionado.getId() == evento.getId() && cbAvion.getItems().contains(nuevo)) {
+            cbAvion.setValue(nuevo); // Mantener seleccionado el avión cambiado
         }
     }
 
@@ -89,22 +119,27 @@ public class EjercicioL_BorrarAvion_Control implements Initializable {
     }
 
     /**
-     * Elimina el avión seleccionado y muestra una confirmación o error.
+     * Elimina el avión seleccionado en segundo plano y muestra una confirmación o error.
      *
      * @param event Evento de acción al hacer clic en el botón de guardar.
-     * @throws SQLException si ocurre un error al acceder a la base de datos.
      */
     @FXML
-    void guardar(ActionEvent event) throws SQLException {
+    void guardar(ActionEvent event) {
         Avion avion = cbAvion.getSelectionModel().getSelectedItem(); // Obtener el avión seleccionado
-        boolean resultado = AvionDAO.eliminar(avion); // Intentar eliminar el avión de la base de datos
-        if (resultado) {
-            confirmacion("Avión eliminado correctamente"); // Mostrar confirmación de eliminación
-            Stage stage = (Stage) cbAeropuerto.getScene().getWindow(); // Cerrar la ventana actual
-            stage.close();
-        } else {
-            alerta("Ha habido un error eliminando el avión. Por favor inténtelo de nuevo"); // Mostrar alerta de error
+        if (avion == null) {
+            alerta("Selecciona un avión.");
+            return;
         }
+        // Intentar eliminar el avión de la base de datos
+        EjecutorDAO.ejecutar(() -> AvionDAO.eliminar(avion), resultado -> {
+            if (resultado) {
+                confirmacion("Avión eliminado correctamente"); // Mostrar confirmación de eliminación
+                Stage stage = (Stage) cbAeropuerto.getScene().getWindow(); // Cerrar la ventana actual
+                stage.close();
+            } else {
+                alerta("Ha habido un error eliminando el avión. Por favor inténtelo de nuevo"); // Mostrar alerta de error
+            }
+        }, error -> alerta("Ha habido un error eliminando el avión. Por favor inténtelo de nuevo"));
     }
 
     /**
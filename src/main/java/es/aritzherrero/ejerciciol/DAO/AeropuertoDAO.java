@@ -1,17 +1,48 @@
 package es.aritzherrero.ejerciciol.DAO;
 
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
 import es.aritzherrero.ejerciciol.Modelo.Direccion;
+import es.aritzherrero.ejerciciol.Modelo.ImagenDiferida;
 import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.Transaccion;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
-import java.sql.Blob;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class AeropuertoDAO {
+    private static final int TROZO_IMAGEN = Integer.getInteger("ejerciciol.imagen.trozo", 64 * 1024);
+
+    /**
+     * Aeropuertos que se envían en cada executeBatch de {@link #insertarLote(Collection)}.
+     */
+    private static final int TAMANIO_LOTE = Integer.getInteger("ejerciciol.lote.tamanio", 500);
+
+    /**
+     * Consulta de aeropuertos con los datos de su tipo y su dirección, para {@link #mapearAeropuertoTipado}.
+     */
+    private static final String CONSULTA_TIPADA =
+            "SELECT a.id, a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, " +
+            "pu.id_aeropuerto AS id_publico, pu.financiacion, pu.num_trabajadores, " +
+            "pr.id_aeropuerto AS id_privado, pr.numero_socios, " +
+            "d.pais, d.ciudad, d.calle, d.numero " +
+            "FROM aeropuertos a " +
+            "LEFT JOIN aeropuertos_publicos pu ON pu.id_aeropuerto = a.id " +
+            "LEFT JOIN aeropuertos_privados pr ON pr.id_aeropuerto = a.id " +
+            "LEFT JOIN direcciones d ON d.id = a.id_direccion";
 
     /**
      * Obtiene un aeropuerto a partir de su ID.
@@ -20,29 +51,26 @@ public class AeropuertoDAO {
      * @return Objeto Aeropuerto si se encuentra en la base de datos, o null si no.
      */
     public static Aeropuerto getAeropuerto(int id) throws SQLException{
+        Aeropuerto aeropuerto = MapaIdentidad.buscarEnActual(MapaIdentidad.AEROPUERTOS, id, Aeropuerto.class);
+        if (aeropuerto != null) {
+            return aeropuerto;
+        }
         ConexionDB connection = null;
-        Aeropuerto aeropuerto = null;
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id, nombre, anio_inauguracion, capacidad, id_direccion, imagen FROM aeropuertos WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            String consulta = "SELECT a.id, a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, " +
+                    "d.pais, d.ciudad, d.calle, d.numero " +
+                    "FROM aeropuertos a LEFT JOIN direcciones d ON d.id = a.id_direccion WHERE a.id = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                aeropuerto = new Aeropuerto(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getInt("anio_inauguracion"),
-                        rs.getInt("capacidad"),
-                        DireccionDAO.getDireccion(rs.getInt("id_direccion")),
-                        rs.getBlob("imagen")
-                );
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    aeropuerto = mapearAeropuerto(rs, id);
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -54,31 +82,173 @@ public class AeropuertoDAO {
     /**
      * Carga un listado completo de aeropuertos desde la base de datos.
      *
-     * @return ObservableList con todos los aeropuertos.
+     * @return ObservableList con todos los aeropuertos, o null en caso de error (para no confundirlo con una tabla
+     * vacía).
      */
     public static ObservableList<Aeropuerto> cargarListado() throws SQLException {
         ConexionDB connection = null;
         ObservableList<Aeropuerto> airportList = FXCollections.observableArrayList();
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id, nombre, anio_inauguracion, capacidad, id_direccion, imagen FROM aeropuertos";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
+            String consulta = "SELECT a.id, a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, " +
+                    "d.pais, d.ciudad, d.calle, d.numero " +
+                    "FROM aeropuertos a LEFT JOIN direcciones d ON d.id = a.id_direccion";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    airportList.add(mapearAeropuerto(rs, rs.getInt("id")));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airportList;
+    }
+
+    /**
+     * Carga en una sola consulta todos los aeropuertos públicos y privados con su dirección.
+     * Cada elemento es un {@link AeropuertoPublico} o un {@link AeropuertoPrivado}, de modo que la vista
+     * puede separarlos por tipo sin volver a la base de datos.
+     *
+     * @return ObservableList con los aeropuertos de ambos tipos.
+     */
+    public static ObservableList<Object> cargarListadoTipado() throws SQLException {
+        ConexionDB connection = null;
+        ObservableList<Object> airportList = FXCollections.observableArrayList();
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement(CONSULTA_TIPADA);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Object airport = mapearAeropuertoTipado(rs);
+                    if (airport != null) {
+                        airportList.add(airport);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airportList;
+    }
+
+    /**
+     * Carga los aeropuertos públicos y privados con los IDs indicados, por ejemplo los que han cambiado según
+     * registro_cambios. Es una sola consulta por la clave primaria, así que cuesta lo mismo que los IDs pedidos.
+     *
+     * @param ids IDs de los aeropuertos.
+     * @return Los aeropuertos encontrados por ID (los que no existen o no tienen tipo no aparecen),
+     * o null si no se ha podido consultar.
+     */
+    public static Map<Integer, Object> cargarTipadosPorIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Object> airports = new HashMap<>();
+        if (ids.isEmpty()) {
+            return airports;
+        }
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            // los IDs son enteros, así que se pueden concatenar sin riesgo de inyección
+            String consulta = CONSULTA_TIPADA + " WHERE a.id IN (" +
+                    ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")";
+            try (Statement stmt = connection.getConexion().createStatement();
+                 MapaIdentidad sesion = MapaIdentidad.abrir();
+                 ResultSet rs = stmt.executeQuery(consulta)) {
+                while (rs.next()) {
+                    Object airport = mapearAeropuertoTipado(rs);
+                    if (airport != null) {
+                        airports.put(rs.getInt("id"), airport);
+                    }
+                }
+            }
+            return airports;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Carga una página de aeropuertos de un tipo, ordenados por ID, empezando después del ID indicado.
+     * Al filtrar por clave en lugar de usar OFFSET, la base de datos salta directamente al inicio de la página
+     * por el índice de la clave primaria, así que cualquier página cuesta lo mismo.
+     *
+     * @param tipo        AeropuertoPublico.class o AeropuertoPrivado.class.
+     * @param despuesDeId Se devuelven los aeropuertos con ID mayor que este (0 para la primera página).
+     * @param limite      Número máximo de aeropuertos.
+     * @return ObservableList con los aeropuertos de la página.
+     */
+    public static ObservableList<Object> cargarPaginaTipada(Class<?> tipo, int despuesDeId, int limite) throws SQLException {
+        ConexionDB connection = null;
+        ObservableList<Object> airportList = FXCollections.observableArrayList();
+        try {
+            connection = new ConexionDB();
+            String consulta = CONSULTA_TIPADA + " WHERE " + aliasTipo(tipo) + ".id_aeropuerto IS NOT NULL AND a.id > ? " +
+                    "ORDER BY a.id LIMIT ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setInt(1, despuesDeId);
+            pstmt.setInt(2, limite);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    airportList.add(mapearAeropuertoTipado(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airportList;
+    }
 
-            while (rs.next()) {
-                airportList.add(new Aeropuerto(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getInt("anio_inauguracion"),
-                        rs.getInt("capacidad"),
-                        DireccionDAO.getDireccion(rs.getInt("id_direccion")),
-                        rs.getBlob("imagen")
-                ));
+    /**
+     * Busca aeropuertos de un tipo cuyo nombre empieza por el texto indicado. La búsqueda por prefijo usa el índice
+     * idx_aeropuertos_nombre (sql/indice_nombre_aeropuertos.sql), así que no recorre la tabla entera. El filtro en
+     * memoria de {@link IndiceTrigramas}, en cambio, busca el texto en cualquier parte del nombre; por eso la tabla
+     * paginada indica en el campo de filtro que busca por el comienzo.
+     *
+     * @param prefijo Comienzo del nombre. Los caracteres % y _ se buscan literalmente.
+     * @param tipo    AeropuertoPublico.class o AeropuertoPrivado.class.
+     * @param limite  Número máximo de resultados.
+     * @return ObservableList con los aeropuertos encontrados, ordenados por nombre.
+     */
+    public static ObservableList<Object> buscarPorNombre(String prefijo, Class<?> tipo, int limite) throws SQLException {
+        ConexionDB connection = null;
+        ObservableList<Object> airportList = FXCollections.observableArrayList();
+        try {
+            connection = new ConexionDB();
+            String consulta = CONSULTA_TIPADA + " WHERE " + aliasTipo(tipo) + ".id_aeropuerto IS NOT NULL " +
+                    "AND a.nombre LIKE ? ESCAPE '!' ORDER BY a.nombre LIMIT ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setString(1, prefijo.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+            pstmt.setInt(2, limite);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    airportList.add(mapearAeropuertoTipado(rs));
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -87,6 +257,234 @@ public class AeropuertoDAO {
         return airportList;
     }
 
+    /**
+     * Cuenta los aeropuertos de un tipo.
+     *
+     * @param tipo AeropuertoPublico.class o AeropuertoPrivado.class.
+     * @return El número de aeropuertos, o 0 en caso de error.
+     */
+    public static int contarTipados(Class<?> tipo) throws SQLException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(*) FROM " + tablaTipo(tipo));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return 0;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el ID del aeropuerto de un tipo al que se llega saltando un número de filas, en el orden por ID, desde
+     * el primero con ID mayor que uno dado. Se usa para saltar a una página sin haber leído las anteriores: el OFFSET
+     * recorre solo el índice de la tabla del tipo, y solo desde la última página conocida.
+     *
+     * @param tipo        AeropuertoPublico.class o AeropuertoPrivado.class.
+     * @param despuesDeId Se cuenta desde el primer aeropuerto con ID mayor que este.
+     * @param saltar      Aeropuertos que se saltan.
+     * @return El ID, o -1 si no hay tantos aeropuertos o en caso de error.
+     */
+    public static int getIdTipadoDespuesDe(Class<?> tipo, int despuesDeId, int saltar) throws SQLException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            String consulta = "SELECT id_aeropuerto FROM " + tablaTipo(tipo)
+                    + " WHERE id_aeropuerto > ? ORDER BY id_aeropuerto LIMIT 1 OFFSET ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setInt(1, despuesDeId);
+            pstmt.setInt(2, saltar);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Fuente de páginas de aeropuertos de un tipo para una {@link ListaPaginada}.
+     *
+     * @param tipo AeropuertoPublico.class o AeropuertoPrivado.class.
+     * @return La fuente, cuyos elementos son AeropuertoPublico o AeropuertoPrivado.
+     */
+    public static ListaPaginada.Fuente<Object> fuenteTipada(Class<?> tipo) {
+        tablaTipo(tipo); // comprueba el tipo ahora y no al leer la primera página
+        return new ListaPaginada.Fuente<>() {
+            @Override
+            public int contar() throws SQLException {
+                return contarTipados(tipo);
+            }
+
+            @Override
+            public List<Object> cargarPagina(int despuesDeId, int limite) throws SQLException {
+                return cargarPaginaTipada(tipo, despuesDeId, limite);
+            }
+
+            @Override
+            public int getIdDespuesDe(int despuesDeId, int saltar) throws SQLException {
+                return getIdTipadoDespuesDe(tipo, despuesDeId, saltar);
+            }
+
+            @Override
+            public int getId(Object elemento) {
+                return elemento instanceof AeropuertoPublico
+                        ? ((AeropuertoPublico) elemento).getAeropuerto().getId()
+                        : ((AeropuertoPrivado) elemento).getAeropuerto().getId();
+            }
+        };
+    }
+
+    private static String tablaTipo(Class<?> tipo) {
+        if (tipo == AeropuertoPublico.class) {
+            return "aeropuertos_publicos";
+        }
+        if (tipo == AeropuertoPrivado.class) {
+            return "aeropuertos_privados";
+        }
+        throw new IllegalArgumentException("Tipo de aeropuerto no válido: " + tipo);
+    }
+
+    private static String aliasTipo(Class<?> tipo) {
+        return tablaTipo(tipo).equals("aeropuertos_publicos") ? "pu" : "pr";
+    }
+
+    /**
+     * Construye un aeropuerto público o privado a partir de una fila con las columnas de aeropuertos, direcciones,
+     * id_publico, financiacion, num_trabajadores, id_privado y numero_socios.
+     *
+     * @param rs ResultSet posicionado en la fila.
+     * @return El AeropuertoPublico o AeropuertoPrivado, o null si el aeropuerto no es de ningún tipo.
+     */
+    static Object mapearAeropuertoTipado(ResultSet rs) throws SQLException {
+        rs.getInt("id_publico");
+        boolean publico = !rs.wasNull();
+        rs.getInt("id_privado");
+        boolean privado = !rs.wasNull();
+        if (!publico && !privado) {
+            return null;
+        }
+        Aeropuerto aeropuerto = mapearAeropuerto(rs, rs.getInt("id"));
+        if (publico) {
+            return new AeropuertoPublico(aeropuerto, rs.getBigDecimal("financiacion"), rs.getInt("num_trabajadores"));
+        }
+        return new AeropuertoPrivado(aeropuerto, rs.getInt("numero_socios"));
+    }
+
+    /**
+     * Construye un aeropuerto a partir de la fila actual de una consulta que hace JOIN con aeropuertos y direcciones.
+     * La consulta debe traer nombre, anio_inauguracion, capacidad y las columnas de la dirección; la imagen no se lee.
+     * Si hay un mapa de identidad abierto y el aeropuerto ya se había construido, se devuelve esa misma instancia.
+     *
+     * @param rs ResultSet posicionado en la fila.
+     * @param id ID del aeropuerto.
+     * @return El aeropuerto de la fila.
+     */
+    static Aeropuerto mapearAeropuerto(ResultSet rs, int id) throws SQLException {
+        Aeropuerto aeropuerto = MapaIdentidad.buscarEnActual(MapaIdentidad.AEROPUERTOS, id, Aeropuerto.class);
+        if (aeropuerto != null) {
+            return aeropuerto;
+        }
+        aeropuerto = nuevoAeropuerto(
+                id,
+                rs.getString("nombre"),
+                rs.getInt("anio_inauguracion"),
+                rs.getInt("capacidad"),
+                DireccionDAO.mapearDireccion(rs)
+        );
+        return MapaIdentidad.registrarEnActual(MapaIdentidad.AEROPUERTOS, id, aeropuerto);
+    }
+
+    /**
+     * Crea un aeropuerto leído de la base de datos sin su imagen, con una referencia para leerla cuando se pida.
+     */
+    static Aeropuerto nuevoAeropuerto(int id, String nombre, int anio_inauguracion, int capacidad, Direccion direccion) {
+        Aeropuerto aeropuerto = new Aeropuerto(id, nombre, anio_inauguracion, capacidad, direccion, null);
+        aeropuerto.setImagenDiferida(new ImagenDiferida(id, AeropuertoDAO::leerImagen));
+        return aeropuerto;
+    }
+
+    /**
+     * Obtiene el hash MD5 de la imagen de un aeropuerto, calculado en la base de datos, sin transferir la imagen.
+     *
+     * @param id ID del aeropuerto.
+     * @return El hash en hexadecimal, o null si el aeropuerto no tiene imagen.
+     */
+    public static String getHashImagen(int id) throws SQLException {
+        ConexionDB connection = null;
+        String hash = null;
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement("SELECT MD5(imagen) FROM aeropuertos WHERE id = ?");
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    hash = rs.getString(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Lee la imagen de un aeropuerto en trozos de tamaño fijo y se la pasa al lector como un flujo.
+     * La conexión queda prestada mientras el lector consume el flujo.
+     *
+     * @param id     ID del aeropuerto.
+     * @param lector Función que consume el flujo.
+     * @return Lo que devuelve el lector, o null si el aeropuerto no tiene imagen.
+     */
+    public static <T> T leerImagen(int id, ImagenDiferida.Lector<T> lector) throws IOException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement("SELECT LENGTH(imagen) FROM aeropuertos WHERE id = ?");
+            pstmt.setInt(1, id);
+            long longitud;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                longitud = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (longitud <= 0) {
+                return null;
+            }
+            try (InputStream in = new FlujoBlobPorTrozos(connection, "aeropuertos", "imagen", id, longitud, TROZO_IMAGEN)) {
+                return lector.leer(in);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            try {
+                if (connection != null) {
+                    connection.CloseConexion();
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
     /**
      * Modifica los datos de un aeropuerto existente en la base de datos.
      *
@@ -98,21 +496,32 @@ public class AeropuertoDAO {
         ConexionDB connection = null;
         try {
             connection = new ConexionDB();
-            String consulta = "UPDATE aeropuertos SET nombre = ?, anio_inauguracion = ?, capacidad = ?, id_direccion = ?, imagen = ? WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            // Los aeropuertos de los listados no traen la imagen: si no hay una nueva se conserva la guardada
+            boolean conImagen = aeropuertoNuevo.getImagen() != null;
+            String consulta = conImagen
+                    ? "UPDATE aeropuertos SET nombre = ?, anio_inauguracion = ?, capacidad = ?, id_direccion = ?, imagen = ? WHERE id = ?"
+                    : "UPDATE aeropuertos SET nombre = ?, anio_inauguracion = ?, capacidad = ?, id_direccion = ? WHERE id = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setString(1, aeropuertoNuevo.getNombre());
             pstmt.setInt(2, aeropuertoNuevo.getAnio_inauguracion());
             pstmt.setInt(3, aeropuertoNuevo.getCapacidad());
             pstmt.setInt(4, aeropuertoNuevo.getDireccion().getId());
-            pstmt.setBlob(5, aeropuertoNuevo.getImagen());
-            pstmt.setInt(6, aeropuerto.getId());
+            if (conImagen) {
+                pstmt.setBlob(5, aeropuertoNuevo.getImagen());
+            }
+            pstmt.setInt(conImagen ? 6 : 5, aeropuerto.getId());
 
             boolean updated = pstmt.executeUpdate() > 0;
+            CatalogoAeropuertos.invalidar();
+            Transaccion.alConfirmar(() -> CacheImagenes.olvidar(aeropuerto.getId()));
+            if (updated) {
+                BusCambios.publicar(EventoCambio.modificado(Aeropuerto.class, aeropuerto.getId(), aeropuertoNuevo));
+            }
             System.out.println("Actualizada aeropuerto"); // Confirmación en consola
-            pstmt.close();
             return updated;
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -121,6 +530,44 @@ public class AeropuertoDAO {
         }
     }
 
+    /**
+     * Crea un aeropuerto junto con su dirección en una sola transacción. Asigna los IDs generados a la dirección
+     * y al aeropuerto.
+     *
+     * @param aeropuerto Aeropuerto a crear, con una dirección todavía sin insertar.
+     * @return ID del aeropuerto creado o -1 en caso de error (no se inserta nada).
+     */
+    public static int crear(Aeropuerto aeropuerto) throws SQLException {
+        try {
+            return Transaccion.ejecutar(() -> insertarConDireccion(aeropuerto));
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return -1;
+        }
+    }
+
+    /**
+     * Inserta la dirección y el aeropuerto dentro de la transacción abierta. Lanza una excepción si falla alguna
+     * de las dos inserciones, para que la transacción se deshaga.
+     *
+     * @param aeropuerto Aeropuerto a insertar.
+     * @return ID del aeropuerto insertado.
+     */
+    static int insertarConDireccion(Aeropuerto aeropuerto) throws SQLException {
+        int idDireccion = DireccionDAO.insertar(aeropuerto.getDireccion());
+        if (idDireccion == -1) {
+            throw new SQLException("No se pudo insertar la dirección del aeropuerto");
+        }
+        aeropuerto.getDireccion().setId(idDireccion);
+        int id = insertar(aeropuerto);
+        if (id == -1) {
+            throw new SQLException("No se pudo insertar el aeropuerto");
+        }
+        aeropuerto.setId(id);
+        return id;
+    }
+
     /**
      * Inserta un nuevo aeropuerto en la base de datos.
      *
@@ -132,7 +579,7 @@ public class AeropuertoDAO {
         try {
             connection = new ConexionDB();
             String consulta = "INSERT INTO aeropuertos (nombre, anio_inauguracion, capacidad, id_direccion, imagen) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+            PreparedStatement pstmt = connection.prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, aeropuerto.getNombre());
             pstmt.setInt(2, aeropuerto.getAnio_inauguracion());
             pstmt.setInt(3, aeropuerto.getCapacidad());
@@ -140,21 +587,22 @@ public class AeropuertoDAO {
             pstmt.setBlob(5, aeropuerto.getImagen());
 
             int filasAfectadas = pstmt.executeUpdate();
+            CatalogoAeropuertos.invalidar();
             System.out.println("Nueva entrada en aeropuerto"); // Confirmación en consola
 
             if (filasAfectadas > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    int id = rs.getInt(1);
-                    rs.close();
-                    pstmt.close();
-                    return id;
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int id = rs.getInt(1);
+                        BusCambios.publicar(EventoCambio.creado(Aeropuerto.class, id, aeropuerto));
+                        return id;
+                    }
                 }
             }
-            pstmt.close();
             return -1;
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
             return -1;
         } finally {
             if (connection != null) {
@@ -163,6 +611,164 @@ public class AeropuertoDAO {
         }
     }
 
+    /**
+     * Inserta varios aeropuertos públicos o privados completos (dirección, aeropuerto y datos del tipo) en una sola
+     * transacción, enviándolos en lotes del tamaño por defecto.
+     *
+     * @param aeropuertos AeropuertoPublico o AeropuertoPrivado, mezclados.
+     * @return los IDs generados y el rendimiento, o null si la inserción falla (no se inserta ninguno).
+     */
+    public static ResultadoLote insertarLote(Collection<?> aeropuertos) throws SQLException {
+        return insertarLote(aeropuertos, TAMANIO_LOTE);
+    }
+
+    /**
+     * Inserta varios aeropuertos públicos o privados completos en una sola transacción. Cada lote de
+     * {@code tamanioLote} aeropuertos se envía con un executeBatch por tabla: primero las direcciones, luego los
+     * aeropuertos con los IDs de sus direcciones y por último las filas de cada tipo. Asigna los IDs generados a las
+     * direcciones y a los aeropuertos.
+     *
+     * @param aeropuertos AeropuertoPublico o AeropuertoPrivado, mezclados.
+     * @param tamanioLote aeropuertos por lote.
+     * @return los IDs de los aeropuertos, en el orden de la colección, y el rendimiento, o null si la inserción falla
+     * (se deshace entera). Dentro de una {@link Transaccion} abierta, el commit lo hace la transacción.
+     */
+    public static ResultadoLote insertarLote(Collection<?> aeropuertos, int tamanioLote) throws SQLException {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo");
+        }
+        long inicio = System.nanoTime();
+        int[] ids = new int[aeropuertos.size()];
+        try (Transaccion transaccion = Transaccion.iniciar()) {
+            ConexionDB connection = new ConexionDB();
+            try {
+                List<Object> lote = new ArrayList<>(Math.min(tamanioLote, ids.length));
+                int leidos = 0;
+                for (Object aeropuerto : aeropuertos) {
+                    lote.add(aeropuerto);
+                    if (lote.size() == tamanioLote) {
+                        leidos = insertarTrozo(connection, lote, ids, leidos);
+                        lote.clear();
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    insertarTrozo(connection, lote, ids, leidos);
+                }
+            } finally {
+                connection.CloseConexion();
+            }
+            transaccion.confirmar();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return null;
+        }
+        CatalogoAeropuertos.invalidar();
+        return new ResultadoLote(ids, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Inserta un lote de aeropuertos tipados y copia sus IDs a continuación de los ya leídos.
+     *
+     * @return el número total de IDs leídos.
+     */
+    private static int insertarTrozo(ConexionDB connection, List<Object> lote, int[] ids, int leidos) throws SQLException {
+        List<Aeropuerto> datos = new ArrayList<>(lote.size());
+        for (Object tipado : lote) {
+            if (tipado instanceof AeropuertoPublico publico) {
+                datos.add(publico.getAeropuerto());
+            } else if (tipado instanceof AeropuertoPrivado privado) {
+                datos.add(privado.getAeropuerto());
+            } else {
+                throw new IllegalArgumentException("Tipo de aeropuerto no válido: " + tipado);
+            }
+        }
+
+        PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO direcciones (pais, ciudad, calle, numero) VALUES (?, ?, ?, ?)",
+                PreparedStatement.RETURN_GENERATED_KEYS);
+        for (Aeropuerto aeropuerto : datos) {
+            Direccion direccion = aeropuerto.getDireccion();
+            pstmt.setString(1, direccion.getPais());
+            pstmt.setString(2, direccion.getCiudad());
+            pstmt.setString(3, direccion.getCalle());
+            pstmt.setInt(4, direccion.getNumero());
+            pstmt.addBatch();
+        }
+        int[] idsDirecciones = ejecutarLote(pstmt, datos.size());
+        for (int i = 0; i < datos.size(); i++) {
+            datos.get(i).getDireccion().setId(idsDirecciones[i]);
+        }
+
+        pstmt = connection.prepareStatement(
+                "INSERT INTO aeropuertos (nombre, anio_inauguracion, capacidad, id_direccion, imagen) VALUES (?, ?, ?, ?, ?)",
+                PreparedStatement.RETURN_GENERATED_KEYS);
+        for (Aeropuerto aeropuerto : datos) {
+            pstmt.setString(1, aeropuerto.getNombre());
+            pstmt.setInt(2, aeropuerto.getAnio_inauguracion());
+            pstmt.setInt(3, aeropuerto.getCapacidad());
+            pstmt.setInt(4, aeropuerto.getDireccion().getId());
+            pstmt.setBlob(5, aeropuerto.getImagen());
+            pstmt.addBatch();
+        }
+        int[] idsAeropuertos = ejecutarLote(pstmt, datos.size());
+        for (int i = 0; i < datos.size(); i++) {
+            datos.get(i).setId(idsAeropuertos[i]);
+            ids[leidos++] = idsAeropuertos[i];
+        }
+
+        PreparedStatement publicos = null;
+        PreparedStatement privados = null;
+        for (Object tipado : lote) {
+            if (tipado instanceof AeropuertoPublico publico) {
+                if (publicos == null) {
+                    publicos = connection.prepareStatement(
+                            "INSERT INTO aeropuertos_publicos (id_aeropuerto, financiacion, num_trabajadores) VALUES (?, ?, ?)");
+                }
+                publicos.setInt(1, publico.getAeropuerto().getId());
+                publicos.setBigDecimal(2, publico.getFinanciacion());
+                publicos.setInt(3, publico.getNum_trabajadores());
+                publicos.addBatch();
+            } else {
+                AeropuertoPrivado privado = (AeropuertoPrivado) tipado;
+                if (privados == null) {
+                    privados = connection.prepareStatement(
+                            "INSERT INTO aeropuertos_privados (id_aeropuerto, numero_socios) VALUES (?, ?)");
+                }
+                privados.setInt(1, privado.getAeropuerto().getId());
+                privados.setInt(2, privado.getNumero_socios());
+                privados.addBatch();
+            }
+        }
+        if (publicos != null) {
+            publicos.executeBatch();
+        }
+        if (privados != null) {
+            privados.executeBatch();
+        }
+        return leidos;
+    }
+
+    /**
+     * Envía el lote acumulado y devuelve las claves generadas.
+     *
+     * @param filas filas del lote.
+     */
+    private static int[] ejecutarLote(PreparedStatement pstmt, int filas) throws SQLException {
+        pstmt.executeBatch();
+        int[] claves = new int[filas];
+        int leidas = 0;
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (rs.next() && leidas < filas) {
+                claves[leidas++] = rs.getInt(1);
+            }
+        }
+        if (leidas != filas) {
+            throw new SQLException("Se esperaban " + filas + " claves generadas y se han obtenido " + leidas);
+        }
+        return claves;
+    }
+
     /**
      * Elimina un aeropuerto de la base de datos.
      *
@@ -174,15 +780,20 @@ public class AeropuertoDAO {
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM aeropuertos WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getId());
 
             boolean deleted = pstmt.executeUpdate() > 0;
-            pstmt.close();
+            CatalogoAeropuertos.invalidar();
+            Transaccion.alConfirmar(() -> CacheImagenes.olvidar(aeropuerto.getId()));
+            if (deleted) {
+                BusCambios.publicar(EventoCambio.eliminado(Aeropuerto.class, aeropuerto.getId()));
+            }
             System.out.println("Eliminado con éxito"); // Confirmación en consola
             return deleted;
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -190,4 +801,64 @@ public class AeropuertoDAO {
             }
         }
     }
+
+    /**
+     * Elimina un aeropuerto con todo lo que depende de él: sus aviones, la fila de aeropuertos_publicos o
+     * aeropuertos_privados, el propio aeropuerto y su dirección si ningún otro aeropuerto la usa.
+     * Es una sentencia preparada por tabla sobre la misma conexión, confirmadas en una única {@link Transaccion}, así
+     * que o se borra todo o no se borra nada y el coste no depende del número de aviones.
+     * La caché de imágenes, el índice de modelos, las estadísticas de la flota y los avisos de {@link BusCambios} se
+     * actualizan al hacer commit, que si la llamada va dentro de otra transacción es el de esa transacción.
+     *
+     * @param aeropuerto Aeropuerto a eliminar.
+     * @return true si se ha eliminado el aeropuerto, false en caso contrario.
+     */
+    public static boolean eliminarEnCascada(Aeropuerto aeropuerto) throws SQLException {
+        int id = aeropuerto.getId();
+        try (Transaccion transaccion = Transaccion.iniciar()) {
+            ConexionDB connection = new ConexionDB();
+            try {
+                borrarPorId(connection, "DELETE FROM aviones WHERE id_aeropuerto = ?", id);
+                borrarPorId(connection, "DELETE FROM aeropuertos_publicos WHERE id_aeropuerto = ?", id);
+                borrarPorId(connection, "DELETE FROM aeropuertos_privados WHERE id_aeropuerto = ?", id);
+                if (borrarPorId(connection, "DELETE FROM aeropuertos WHERE id = ?", id) == 0) {
+                    // otro usuario ya lo había borrado: no es un error, así que se confirma este nivel para no
+                    // deshacer la transacción de quien llama
+                    transaccion.confirmar();
+                    return false;
+                }
+                if (aeropuerto.getDireccion() != null) {
+                    String consulta = "DELETE FROM direcciones WHERE id = ? " +
+                            "AND NOT EXISTS (SELECT 1 FROM aeropuertos WHERE id_direccion = ?)";
+                    PreparedStatement pstmt = connection.prepareStatement(consulta);
+                    pstmt.setInt(1, aeropuerto.getDireccion().getId());
+                    pstmt.setInt(2, aeropuerto.getDireccion().getId());
+                    pstmt.executeUpdate();
+                }
+            } finally {
+                connection.CloseConexion();
+            }
+            CatalogoAeropuertos.invalidar();
+            Transaccion.alConfirmar(() -> {
+                CacheImagenes.olvidar(id);
+                IndiceModelos.olvidar(id);
+                EstadisticasFlota.alEliminarAeropuerto(id);
+            });
+            // las pantallas de aviones quitan los de este aeropuerto al recibir su baja
+            BusCambios.publicar(EventoCambio.eliminado(Aeropuerto.class, id));
+            transaccion.confirmar();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de error SQL
+            Transaccion.marcarSoloRollback();
+            return false;
+        }
+        System.out.println("Eliminado con éxito"); // Confirmación en consola
+        return true;
+    }
+
+    private static int borrarPorId(ConexionDB connection, String consulta, int id) throws SQLException {
+        PreparedStatement pstmt = connection.prepareStatement(consulta);
+        pstmt.setInt(1, id);
+        return pstmt.executeUpdate();
+    }
 }
@@ -2,18 +2,26 @@ package es.aritzherrero.ejerciciol.DAO;
 
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
-import es.aritzherrero.ejerciciol.Modelo.Direccion;
 import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.Transaccion;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
-import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public class AeropuertoPrivadoDAO {
 
+    /**
+     * Aeropuertos privados con su dirección en la misma fila, para no pedir cada dirección aparte.
+     */
+    private static final String CONSULTA =
+            "SELECT a.id, a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, pr.numero_socios, " +
+            "d.pais, d.ciudad, d.calle, d.numero " +
+            "FROM aeropuertos a JOIN aeropuertos_privados pr ON pr.id_aeropuerto = a.id " +
+            "LEFT JOIN direcciones d ON d.id = a.id_direccion";
+
     /**
      * Obtiene un aeropuerto privado de la base de datos dado su ID.
      *
@@ -25,26 +33,19 @@ public class AeropuertoPrivadoDAO {
         AeropuertoPrivado aeropuerto = null;
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,nombre,anio_inauguracion,capacidad,id_direccion,imagen,numero_socios FROM aeropuertos,aeropuertos_privados WHERE id=id_aeropuerto AND id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            String consulta = CONSULTA + " WHERE a.id = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int id_aeropuerto = rs.getInt("id");
-                String nombre = rs.getString("nombre");
-                int anio_inauguracion = rs.getInt("anio_inauguracion");
-                int capacidad = rs.getInt("capacidad");
-                int id_direccion = rs.getInt("id_direccion");
-                Direccion direccion = DireccionDAO.getDireccion(id_direccion);
-                Blob imagen = rs.getBlob("imagen");
-                Aeropuerto airport = new Aeropuerto(id, nombre, anio_inauguracion, capacidad, direccion, imagen);
-                int numero_socios = rs.getInt("numero_socios");
-                aeropuerto = new AeropuertoPrivado(airport, numero_socios);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Aeropuerto airport = AeropuertoDAO.mapearAeropuerto(rs, rs.getInt("id"));
+                    int numero_socios = rs.getInt("numero_socios");
+                    aeropuerto = new AeropuertoPrivado(airport, numero_socios);
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -63,26 +64,18 @@ public class AeropuertoPrivadoDAO {
         ObservableList<AeropuertoPrivado> airportList = FXCollections.observableArrayList();
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,nombre,anio_inauguracion,capacidad,id_direccion,imagen,numero_socios FROM aeropuertos,aeropuertos_privados WHERE id=id_aeropuerto";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String nombre = rs.getString("nombre");
-                int anio_inauguracion = rs.getInt("anio_inauguracion");
-                int capacidad = rs.getInt("capacidad");
-                int id_direccion = rs.getInt("id_direccion");
-                Direccion direccion = DireccionDAO.getDireccion(id_direccion);
-                Blob imagen = rs.getBlob("imagen");
-                Aeropuerto aeropuerto = new Aeropuerto(id, nombre, anio_inauguracion, capacidad, direccion, imagen);
-                int numero_socios = rs.getInt("numero_socios");
-                AeropuertoPrivado airport = new AeropuertoPrivado(aeropuerto, numero_socios);
-                airportList.add(airport);
+            PreparedStatement pstmt = connection.prepareStatement(CONSULTA);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Aeropuerto aeropuerto = AeropuertoDAO.mapearAeropuerto(rs, rs.getInt("id"));
+                    int numero_socios = rs.getInt("numero_socios");
+                    AeropuertoPrivado airport = new AeropuertoPrivado(aeropuerto, numero_socios);
+                    airportList.add(airport);
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -100,24 +93,25 @@ public class AeropuertoPrivadoDAO {
      */
     public static boolean modificar(AeropuertoPrivado aeropuerto, AeropuertoPrivado aeropuertoNuevo) {
         ConexionDB connection = null;
-        PreparedStatement pstmt = null;
         try {
             connection = new ConexionDB();
             String consulta = "UPDATE aeropuertos_privados SET numero_socios = ? WHERE id_aeropuerto = ?";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuertoNuevo.getNumero_socios());
             pstmt.setInt(2, aeropuerto.getAeropuerto().getId());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.modificado(AeropuertoPrivado.class, aeropuerto.getAeropuerto().getId(),
+                        aeropuertoNuevo));
+            }
             System.out.println("Actualizado aeropuerto");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             try {
-                if (pstmt != null) {
-                    pstmt.close();
-                }
                 if (connection != null) {
                     connection.CloseConexion();
                 }
@@ -127,6 +121,29 @@ public class AeropuertoPrivadoDAO {
         }
     }
 
+    /**
+     * Crea un aeropuerto privado completo (dirección, aeropuerto y datos del aeropuerto privado) en una sola transacción,
+     * con un único commit. Asigna los IDs generados a la dirección y al aeropuerto.
+     *
+     * @param aeropuerto El aeropuerto privado a crear.
+     * @return ID del aeropuerto creado o -1 en caso de error (no se inserta nada).
+     */
+    public static int crear(AeropuertoPrivado aeropuerto) throws SQLException {
+        try {
+            return Transaccion.ejecutar(() -> {
+                int id = AeropuertoDAO.insertarConDireccion(aeropuerto.getAeropuerto());
+                if (!insertar(aeropuerto)) {
+                    throw new SQLException("No se pudo insertar el aeropuerto privado");
+                }
+                return id;
+            });
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return -1;
+        }
+    }
+
     /**
      * Inserta un nuevo aeropuerto privado en la base de datos.
      *
@@ -135,24 +152,25 @@ public class AeropuertoPrivadoDAO {
      */
     public static boolean insertar(AeropuertoPrivado aeropuerto) {
         ConexionDB connection = null;
-        PreparedStatement pstmt = null;
         try {
             connection = new ConexionDB();
             String consulta = "INSERT INTO aeropuertos_privados (id_aeropuerto,numero_socios) VALUES (?,?) ";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getAeropuerto().getId());
             pstmt.setInt(2, aeropuerto.getNumero_socios());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.creado(AeropuertoPrivado.class, aeropuerto.getAeropuerto().getId(),
+                        aeropuerto));
+            }
             System.out.println("Nueva entrada en aeropuertos_privados");
             return (filasAfectadas > 0);
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             try {
-                if (pstmt != null) {
-                    pstmt.close();
-                }
                 if (connection != null) {
                     connection.CloseConexion();
                 }
@@ -170,23 +188,23 @@ public class AeropuertoPrivadoDAO {
      */
     public static boolean eliminar(AeropuertoPrivado aeropuerto) {
         ConexionDB connection = null;
-        PreparedStatement pstmt = null;
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM aeropuertos_privados WHERE (id_aeropuerto = ?)";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getAeropuerto().getId());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.eliminado(AeropuertoPrivado.class, aeropuerto.getAeropuerto().getId()));
+            }
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             try {
-                if (pstmt != null) {
-                    pstmt.close();
-                }
                 if (connection != null) {
                     connection.CloseConexion();
                 }
@@ -1,13 +1,12 @@
 package es.aritzherrero.ejerciciol.DAO;
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
-import es.aritzherrero.ejerciciol.Modelo.Direccion;
 import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.Transaccion;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.math.BigDecimal;
-import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -17,6 +16,15 @@ import java.sql.SQLException;
  */
 public class AeropuertoPublicoDAO {
 
+    /**
+     * Aeropuertos públicos con su dirección en la misma fila, para no pedir cada dirección aparte.
+     */
+    private static final String CONSULTA =
+            "SELECT a.id, a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, pu.financiacion, pu.num_trabajadores, " +
+            "d.pais, d.ciudad, d.calle, d.numero " +
+            "FROM aeropuertos a JOIN aeropuertos_publicos pu ON pu.id_aeropuerto = a.id " +
+            "LEFT JOIN direcciones d ON d.id = a.id_direccion";
+
     /**
      * Obtiene un aeropuerto público por su ID.
      *
@@ -29,27 +37,20 @@ public class AeropuertoPublicoDAO {
 
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,nombre,anio_inauguracion,capacidad,id_direccion,imagen,financiacion,num_trabajadores " +
-                    "FROM aeropuertos,aeropuertos_publicos WHERE id=id_aeropuerto AND id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            String consulta = CONSULTA + " WHERE a.id = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                int id_aeropuerto = rs.getInt("id");
-                String nombre = rs.getString("nombre");
-                int anio_inauguracion = rs.getInt("anio_inauguracion");
-                int capacidad = rs.getInt("capacidad");
-                int id_direccion = rs.getInt("id_direccion");
-                Direccion direccion = DireccionDAO.getDireccion(id_direccion);
-                Blob imagen = rs.getBlob("imagen");
-                Aeropuerto airport = new Aeropuerto(id_aeropuerto, nombre, anio_inauguracion, capacidad, direccion, imagen);
-                BigDecimal financiacion = rs.getBigDecimal("financiacion");
-                int num_trabajadores = rs.getInt("num_trabajadores");
-                aeropuerto = new AeropuertoPublico(airport, financiacion, num_trabajadores);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Aeropuerto airport = AeropuertoDAO.mapearAeropuerto(rs, rs.getInt("id"));
+                    BigDecimal financiacion = rs.getBigDecimal("financiacion");
+                    int num_trabajadores = rs.getInt("num_trabajadores");
+                    aeropuerto = new AeropuertoPublico(airport, financiacion, num_trabajadores);
+                }
             }
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -69,27 +70,19 @@ public class AeropuertoPublicoDAO {
 
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,nombre,anio_inauguracion,capacidad,id_direccion,imagen,financiacion,num_trabajadores " +
-                    "FROM aeropuertos,aeropuertos_publicos WHERE id=id_aeropuerto";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String nombre = rs.getString("nombre");
-                int anio_inauguracion = rs.getInt("anio_inauguracion");
-                int capacidad = rs.getInt("capacidad");
-                int id_direccion = rs.getInt("id_direccion");
-                Direccion direccion = DireccionDAO.getDireccion(id_direccion);
-                Blob imagen = rs.getBlob("imagen");
-                Aeropuerto aeropuerto = new Aeropuerto(id, nombre, anio_inauguracion, capacidad, direccion, imagen);
-                BigDecimal financiacion = rs.getBigDecimal("financiacion");
-                int num_trabajadores = rs.getInt("num_trabajadores");
-                AeropuertoPublico airport = new AeropuertoPublico(aeropuerto, financiacion, num_trabajadores);
-                airportList.add(airport);
+            PreparedStatement pstmt = connection.prepareStatement(CONSULTA);
+            try (MapaIdentidad sesion = MapaIdentidad.abrir(); ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Aeropuerto aeropuerto = AeropuertoDAO.mapearAeropuerto(rs, rs.getInt("id"));
+                    BigDecimal financiacion = rs.getBigDecimal("financiacion");
+                    int num_trabajadores = rs.getInt("num_trabajadores");
+                    AeropuertoPublico airport = new AeropuertoPublico(aeropuerto, financiacion, num_trabajadores);
+                    airportList.add(airport);
+                }
             }
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -107,21 +100,25 @@ public class AeropuertoPublicoDAO {
      */
     public static boolean modificar(AeropuertoPublico aeropuerto, AeropuertoPublico aeropuertoNuevo) throws SQLException {
         ConexionDB connection = null;
-        PreparedStatement pstmt;
 
         try {
             connection = new ConexionDB();
             String consulta = "UPDATE aeropuertos_publicos SET financiacion = ?, num_trabajadores = ? WHERE id_aeropuerto = ?";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setBigDecimal(1, aeropuertoNuevo.getFinanciacion());
             pstmt.setInt(2, aeropuertoNuevo.getNum_trabajadores());
             pstmt.setInt(3, aeropuerto.getAeropuerto().getId());
 
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.modificado(AeropuertoPublico.class, aeropuerto.getAeropuerto().getId(),
+                        aeropuertoNuevo));
+            }
             System.out.println("Actualizado aeropuerto");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -130,6 +127,29 @@ public class AeropuertoPublicoDAO {
         }
     }
 
+    /**
+     * Crea un aeropuerto público completo (dirección, aeropuerto y datos del aeropuerto público) en una sola transacción,
+     * con un único commit. Asigna los IDs generados a la dirección y al aeropuerto.
+     *
+     * @param aeropuerto El aeropuerto público a crear.
+     * @return ID del aeropuerto creado o -1 en caso de error (no se inserta nada).
+     */
+    public static int crear(AeropuertoPublico aeropuerto) throws SQLException {
+        try {
+            return Transaccion.ejecutar(() -> {
+                int id = AeropuertoDAO.insertarConDireccion(aeropuerto.getAeropuerto());
+                if (!insertar(aeropuerto)) {
+                    throw new SQLException("No se pudo insertar el aeropuerto público");
+                }
+                return id;
+            });
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return -1;
+        }
+    }
+
     /**
      * Inserta un nuevo aeropuerto público en la base de datos.
      *
@@ -138,22 +158,26 @@ public class AeropuertoPublicoDAO {
      */
     public static boolean insertar(AeropuertoPublico aeropuerto) throws SQLException {
         ConexionDB connection = null;
-        PreparedStatement pstmt;
 
         try {
             connection = new ConexionDB();
             String consulta = "INSERT INTO aeropuertos_publicos (id_aeropuerto, financiacion, num_trabajadores) VALUES (?, ?, ?)";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
 
             pstmt.setInt(1, aeropuerto.getAeropuerto().getId());
             pstmt.setBigDecimal(2, aeropuerto.getFinanciacion());
             pstmt.setInt(3, aeropuerto.getNum_trabajadores());
 
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.creado(AeropuertoPublico.class, aeropuerto.getAeropuerto().getId(),
+                        aeropuerto));
+            }
             System.out.println("Nueva entrada en aeropuertos_publicos");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -170,19 +194,22 @@ public class AeropuertoPublicoDAO {
      */
     public static boolean eliminar(AeropuertoPublico aeropuerto) throws SQLException {
         ConexionDB connection = null;
-        PreparedStatement pstmt;
 
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM aeropuertos_publicos WHERE id_aeropuerto = ?";
-            pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getAeropuerto().getId());
 
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                BusCambios.publicar(EventoCambio.eliminado(AeropuertoPublico.class, aeropuerto.getAeropuerto().getId()));
+            }
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
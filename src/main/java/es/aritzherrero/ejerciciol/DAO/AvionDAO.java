@@ -2,16 +2,39 @@ package es.aritzherrero.ejerciciol.DAO;
 
 import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
 import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.ResumenFlota;
 import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.Transaccion;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class AvionDAO {
 
+    /**
+     * Filas que se envían en cada executeBatch de {@link #insertarLote(Collection)}.
+     */
+    private static final int TAMANIO_LOTE = Integer.getInteger("ejerciciol.lote.tamanio", 500);
+
+    /**
+     * Consulta de aviones con su aeropuerto y la dirección del aeropuerto en una sola pasada.
+     */
+    private static final String CONSULTA_AVIONES =
+            "SELECT av.id, av.modelo, av.numero_asientos, av.velocidad_maxima, av.activado, av.id_aeropuerto, " +
+            "a.nombre, a.anio_inauguracion, a.capacidad, a.id_direccion, " +
+            "d.pais, d.ciudad, d.calle, d.numero " +
+            "FROM aviones av JOIN aeropuertos a ON a.id = av.id_aeropuerto " +
+            "LEFT JOIN direcciones d ON d.id = a.id_direccion";
+
     /**
      * Obtiene un avión de la base de datos dado su ID.
      *
@@ -19,28 +42,26 @@ public class AvionDAO {
      * @return el objeto Avion correspondiente al ID, o null si no se encuentra.
      */
     public static Avion getAvion(int id) throws SQLException {
+        Avion avion = MapaIdentidad.buscarEnActual(MapaIdentidad.AVIONES, id, Avion.class);
+        if (avion != null) {
+            return avion;
+        }
         ConexionDB connection = null;
-        Avion avion = null;
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,modelo,numero_asientos,velocidad_maxima,activado,id_aeropuerto FROM aviones WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            String consulta = CONSULTA_AVIONES + " WHERE av.id = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                // Extrae los datos del avión y crea una instancia de Avion
-                int id_avion = rs.getInt("id");
-                String modelo = rs.getString("modelo");
-                int numero_asientos = rs.getInt("numero_asientos");
-                int velocidad_maxima = rs.getInt("velocidad_maxima");
-                boolean activado = rs.getBoolean("activado");
-                int id_aeropuerto = rs.getInt("id_aeropuerto");
-                Aeropuerto aeropuerto = AeropuertoDAO.getAeropuerto(id_aeropuerto);
-                avion = new Avion(id_avion, modelo, numero_asientos, velocidad_maxima, activado, aeropuerto);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ObservableList<Avion> encontrados = FXCollections.observableArrayList();
+                leerAviones(rs, encontrados);
+                if (!encontrados.isEmpty()) {
+                    avion = encontrados.get(0);
+                }
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -60,25 +81,49 @@ public class AvionDAO {
         ObservableList<Avion> airplaneList = FXCollections.observableArrayList();
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,modelo,numero_asientos,velocidad_maxima,activado,id_aeropuerto FROM aviones WHERE id_aeropuerto = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            long modelos = IndiceModelos.antesDeLeer();
+            String consulta = CONSULTA_AVIONES + " WHERE av.id_aeropuerto = ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getId());
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                // Extrae los datos y crea un objeto Avion por cada fila
-                int id = rs.getInt("id");
-                String modelo = rs.getString("modelo");
-                int numero_asientos = rs.getInt("numero_asientos");
-                int velocidad_maxima = rs.getInt("velocidad_maxima");
-                boolean activado = rs.getBoolean("activado");
-                int id_aeropuerto = rs.getInt("id_aeropuerto");
-                Aeropuerto aeropuerto_db = AeropuertoDAO.getAeropuerto(id_aeropuerto);
-                Avion avion = new Avion(id, modelo, numero_asientos, velocidad_maxima, activado, aeropuerto_db);
-                airplaneList.add(avion);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                leerAviones(rs, airplaneList);
+            }
+            IndiceModelos.cargar(aeropuerto.getId(), airplaneList.stream().map(Avion::getModelo).toList(), modelos);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airplaneList;
+    }
+
+    /**
+     * Carga una página de los aviones de un aeropuerto, ordenados por ID, empezando después del ID indicado.
+     *
+     * @param aeropuerto  el aeropuerto cuyos aviones se desean cargar.
+     * @param despuesDeId se devuelven los aviones con ID mayor que este (0 para la primera página).
+     * @param limite      número máximo de aviones.
+     * @return una lista observable con los aviones de la página.
+     */
+    public static ObservableList<Avion> cargarPagina(Aeropuerto aeropuerto, int despuesDeId, int limite) throws SQLException {
+        ConexionDB connection = null;
+        ObservableList<Avion> airplaneList = FXCollections.observableArrayList();
+        try {
+            connection = new ConexionDB();
+            String consulta = CONSULTA_AVIONES + " WHERE av.id_aeropuerto = ? AND av.id > ? ORDER BY av.id LIMIT ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setInt(1, aeropuerto.getId());
+            pstmt.setInt(2, despuesDeId);
+            pstmt.setInt(3, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                leerAviones(rs, airplaneList);
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -87,6 +132,94 @@ public class AvionDAO {
         return airplaneList;
     }
 
+    /**
+     * Calcula el resumen de los aviones de un aeropuerto con una sola consulta agregada, sin leer los aviones.
+     *
+     * @param aeropuerto el aeropuerto.
+     * @return el resumen; si el aeropuerto no tiene aviones, todo a 0. Null en caso de error.
+     */
+    public static ResumenFlota getResumenFlota(Aeropuerto aeropuerto) throws SQLException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            String consulta = "SELECT id_aeropuerto, COUNT(*) AS total, " +
+                    "SUM(CASE WHEN activado THEN 1 ELSE 0 END) AS activados, " +
+                    "SUM(numero_asientos) AS asientos, MAX(velocidad_maxima) AS velocidad_maxima " +
+                    "FROM aviones WHERE id_aeropuerto = ? GROUP BY id_aeropuerto";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setInt(1, aeropuerto.getId());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new ResumenFlota(aeropuerto.getId(), rs.getInt("total"), rs.getInt("activados"),
+                            rs.getLong("asientos"), rs.getInt("velocidad_maxima"));
+                }
+                return new ResumenFlota(aeropuerto.getId(), 0, 0, 0, 0);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Calcula el resumen de los aviones de todos los aeropuertos con una sola consulta agrupada.
+     *
+     * @return el resumen de cada aeropuerto con aviones, por ID de aeropuerto, o null en caso de error.
+     */
+    public static Map<Integer, ResumenFlota> getResumenesFlota() throws SQLException {
+        return leerResumenesFlota("");
+    }
+
+    /**
+     * Calcula el resumen de los aviones de varios aeropuertos con una sola consulta agrupada.
+     *
+     * @param idsAeropuerto IDs de los aeropuertos.
+     * @return el resumen de cada aeropuerto con aviones, por ID de aeropuerto (los que no tienen aviones no aparecen),
+     * o null en caso de error.
+     */
+    public static Map<Integer, ResumenFlota> getResumenesFlota(Collection<Integer> idsAeropuerto) throws SQLException {
+        if (idsAeropuerto.isEmpty()) {
+            return new HashMap<>();
+        }
+        // los IDs son enteros, así que se pueden concatenar sin riesgo de inyección
+        return leerResumenesFlota("WHERE id_aeropuerto IN (" +
+                idsAeropuerto.stream().map(String::valueOf).collect(Collectors.joining(",")) + ") ");
+    }
+
+    private static Map<Integer, ResumenFlota> leerResumenesFlota(String filtro) throws SQLException {
+        Map<Integer, ResumenFlota> resumenes = new HashMap<>();
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            String consulta = "SELECT id_aeropuerto, COUNT(*) AS total, " +
+                    "SUM(CASE WHEN activado THEN 1 ELSE 0 END) AS activados, " +
+                    "SUM(numero_asientos) AS asientos, MAX(velocidad_maxima) AS velocidad_maxima " +
+                    "FROM aviones " + filtro + "GROUP BY id_aeropuerto";
+            try (Statement stmt = connection.getConexion().createStatement();
+                 ResultSet rs = stmt.executeQuery(consulta)) {
+                while (rs.next()) {
+                    int idAeropuerto = rs.getInt("id_aeropuerto");
+                    resumenes.put(idAeropuerto, new ResumenFlota(idAeropuerto, rs.getInt("total"),
+                            rs.getInt("activados"), rs.getLong("asientos"), rs.getInt("velocidad_maxima")));
+                }
+            }
+            return resumenes;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
     /**
      * Carga una lista completa de todos los aviones en la base de datos.
      *
@@ -97,30 +230,234 @@ public class AvionDAO {
         ObservableList<Avion> airplaneList = FXCollections.observableArrayList();
         try {
             connection = new ConexionDB();
-            String consulta = "SELECT id,modelo,numero_asientos,velocidad_maxima,activado,id_aeropuerto FROM aviones";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
+            PreparedStatement pstmt = connection.prepareStatement(CONSULTA_AVIONES);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                leerAviones(rs, airplaneList);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airplaneList;
+    }
+
+    /**
+     * Carga los aviones con los IDs indicados en una sola consulta por la clave primaria.
+     *
+     * @param ids los IDs de los aviones.
+     * @return los aviones encontrados por ID (los que no existen no aparecen), o null si no se ha podido consultar.
+     */
+    public static Map<Integer, Avion> cargarPorIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Avion> aviones = new HashMap<>();
+        if (ids.isEmpty()) {
+            return aviones;
+        }
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            // los IDs son enteros, así que se pueden concatenar sin riesgo de inyección
+            String consulta = CONSULTA_AVIONES + " WHERE av.id IN (" +
+                    ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")";
+            ObservableList<Avion> encontrados = FXCollections.observableArrayList();
+            try (Statement stmt = connection.getConexion().createStatement();
+                 ResultSet rs = stmt.executeQuery(consulta)) {
+                leerAviones(rs, encontrados);
+            }
+            for (Avion avion : encontrados) {
+                aviones.put(avion.getId(), avion);
+            }
+            return aviones;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Carga una página de aviones ordenados por ID, empezando después del ID indicado (paginación por clave).
+     *
+     * @param despuesDeId se devuelven los aviones con ID mayor que este (0 para la primera página).
+     * @param limite      número máximo de aviones.
+     * @return una lista observable con los aviones de la página.
+     */
+    public static ObservableList<Avion> cargarPagina(int despuesDeId, int limite) throws SQLException {
+        ConexionDB connection = null;
+        ObservableList<Avion> airplaneList = FXCollections.observableArrayList();
+        try {
+            connection = new ConexionDB();
+            String consulta = CONSULTA_AVIONES + " WHERE av.id > ? ORDER BY av.id LIMIT ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setInt(1, despuesDeId);
+            pstmt.setInt(2, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                leerAviones(rs, airplaneList);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+        return airplaneList;
+    }
+
+    /**
+     * Cuenta los aviones de la base de datos.
+     *
+     * @return el número de aviones, o 0 en caso de error.
+     */
+    public static int contar() throws SQLException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(*) FROM aviones");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return 0;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el ID del avión al que se llega saltando un número de filas, en el orden por ID, desde el primero con ID
+     * mayor que uno dado, para saltar a una página sin leer las anteriores. El OFFSET solo cuenta desde la última
+     * página conocida.
+     *
+     * @param despuesDeId se cuenta desde el primer avión con ID mayor que este.
+     * @param saltar      aviones que se saltan.
+     * @return el ID, o -1 si no hay tantos aviones o en caso de error.
+     */
+    public static int getIdDespuesDe(int despuesDeId, int saltar) throws SQLException {
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            PreparedStatement pstmt = connection.prepareStatement(
+                    "SELECT id FROM aviones WHERE id > ? ORDER BY id LIMIT 1 OFFSET ?");
+            pstmt.setInt(1, despuesDeId);
+            pstmt.setInt(2, saltar);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.CloseConexion();
+            }
+        }
+    }
+
+    /**
+     * Fuente de páginas de aviones para una {@link ListaPaginada}.
+     *
+     * @return la fuente.
+     */
+    public static ListaPaginada.Fuente<Avion> fuentePaginada() {
+        return new ListaPaginada.Fuente<>() {
+            @Override
+            public int contar() throws SQLException {
+                return AvionDAO.contar();
+            }
+
+            @Override
+            public List<Avion> cargarPagina(int despuesDeId, int limite) throws SQLException {
+                return AvionDAO.cargarPagina(despuesDeId, limite);
+            }
+
+            @Override
+            public int getIdDespuesDe(int despuesDeId, int saltar) throws SQLException {
+                return AvionDAO.getIdDespuesDe(despuesDeId, saltar);
+            }
+
+            @Override
+            public int getId(Avion avion) {
+                return avion.getId();
+            }
+        };
+    }
+
+    /**
+     * Recorre el resultado de {@link #CONSULTA_AVIONES} y construye los aviones dentro de un mapa de identidad,
+     * de modo que todos los aviones de un mismo aeropuerto comparten la misma instancia de Aeropuerto
+     * y los aeropuertos con la misma dirección la misma Direccion.
+     *
+     * @param rs    resultado de la consulta.
+     * @param lista lista a la que se añaden los aviones.
+     */
+    static void leerAviones(ResultSet rs, ObservableList<Avion> lista) throws SQLException {
+        try (MapaIdentidad sesion = MapaIdentidad.abrir()) {
             while (rs.next()) {
                 // Extrae los datos y crea un objeto Avion por cada fila
                 int id = rs.getInt("id");
-                String modelo = rs.getString("modelo");
-                int numero_asientos = rs.getInt("numero_asientos");
-                int velocidad_maxima = rs.getInt("velocidad_maxima");
-                boolean activado = rs.getBoolean("activado");
-                int id_aeropuerto = rs.getInt("id_aeropuerto");
-                Aeropuerto aeropuerto = AeropuertoDAO.getAeropuerto(id_aeropuerto);
-                Avion avion = new Avion(id, modelo, numero_asientos, velocidad_maxima, activado, aeropuerto);
-                airplaneList.add(avion);
+                Avion avion = sesion.buscar(MapaIdentidad.AVIONES, id, Avion.class);
+                if (avion == null) {
+                    String modelo = rs.getString("modelo");
+                    int numero_asientos = rs.getInt("numero_asientos");
+                    int velocidad_maxima = rs.getInt("velocidad_maxima");
+                    boolean activado = rs.getBoolean("activado");
+                    Aeropuerto aeropuerto = AeropuertoDAO.mapearAeropuerto(rs, rs.getInt("id_aeropuerto"));
+                    avion = sesion.registrar(MapaIdentidad.AVIONES, id,
+                            new Avion(id, modelo, numero_asientos, velocidad_maxima, activado, aeropuerto));
+                }
+                lista.add(avion);
+            }
+        }
+    }
+
+    /**
+     * Comprueba si ya hay un avión de ese modelo en el aeropuerto. Si se conocen los modelos del aeropuerto se
+     * responde desde memoria; si no, con una sola consulta por el índice único (modelo, id_aeropuerto)
+     * (sql/indice_unico_aviones.sql).
+     *
+     * @param modelo       el modelo del avión.
+     * @param idAeropuerto el ID del aeropuerto.
+     * @return true si ya existe.
+     */
+    public static boolean existe(String modelo, int idAeropuerto) throws SQLException {
+        Boolean enMemoria = IndiceModelos.existe(modelo, idAeropuerto);
+        if (enMemoria != null) {
+            return enMemoria;
+        }
+        ConexionDB connection = null;
+        try {
+            connection = new ConexionDB();
+            String consulta = "SELECT 1 FROM aviones WHERE modelo = ? AND id_aeropuerto = ? LIMIT 1";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setString(1, modelo);
+            pstmt.setInt(2, idAeropuerto);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
             }
-            rs.close();
         } catch (SQLException e) {
+            // si la comprobación falla, el índice único sigue impidiendo el duplicado al insertar
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return false;
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
             }
         }
-        return airplaneList;
     }
 
     /**
@@ -135,18 +472,29 @@ public class AvionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "UPDATE aviones SET modelo = ?, numero_asientos = ?, velocidad_maxima = ?, activado = ?, id_aeropuerto = ? WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setString(1, avionNuevo.getModelo());
             pstmt.setInt(2, avionNuevo.getNumero_asientos());
             pstmt.setInt(3, avionNuevo.getVelocidad_maxima());
             pstmt.setBoolean(4, avionNuevo.isActivado());
             pstmt.setInt(5, avionNuevo.getAeropuerto().getId());
             pstmt.setInt(6, avion.getId());
+            long estadisticas = EstadisticasFlota.antesDeEscribir();
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
+            if (filasAfectadas > 0) {
+                // dentro de una transacción, hasta el commit los demás no ven el cambio
+                Transaccion.alConfirmar(() -> {
+                    IndiceModelos.quitar(avion.getModelo(), avion.getAeropuerto().getId());
+                    IndiceModelos.aniadir(avionNuevo.getModelo(), avionNuevo.getAeropuerto().getId());
+                    EstadisticasFlota.alModificar(avion, avionNuevo, estadisticas);
+                });
+                BusCambios.publicar(EventoCambio.modificado(Avion.class, avion.getId(), avionNuevo));
+            }
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            IndiceModelos.olvidar(avionNuevo.getAeropuerto().getId());
             return false;
         } finally {
             if (connection != null) {
@@ -166,23 +514,34 @@ public class AvionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "INSERT INTO aviones (modelo, numero_asientos, velocidad_maxima, activado, id_aeropuerto) VALUES (?,?,?,?,?)";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+            PreparedStatement pstmt = connection.prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, avion.getModelo());
             pstmt.setInt(2, avion.getNumero_asientos());
             pstmt.setInt(3, avion.getVelocidad_maxima());
             pstmt.setBoolean(4, avion.isActivado());
             pstmt.setInt(5, avion.getAeropuerto().getId());
+            long estadisticas = EstadisticasFlota.antesDeEscribir();
             int filasAfectadas = pstmt.executeUpdate();
             if (filasAfectadas > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);  // Retorna el ID generado
+                // dentro de una transacción, hasta el commit los demás no ven el cambio
+                Transaccion.alConfirmar(() -> {
+                    IndiceModelos.aniadir(avion.getModelo(), avion.getAeropuerto().getId());
+                    EstadisticasFlota.alInsertar(avion, estadisticas);
+                });
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int id = rs.getInt(1);  // Retorna el ID generado
+                        BusCambios.publicar(EventoCambio.creado(Avion.class, id, avion));
+                        return id;
+                    }
                 }
             }
-            pstmt.close();
             return -1;
         } catch (SQLException e) {
+            // si es el índice único (modelo, id_aeropuerto), lo que se sabía del aeropuerto estaba desfasado
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            IndiceModelos.olvidar(avion.getAeropuerto().getId());
             return -1;
         } finally {
             if (connection != null) {
@@ -191,6 +550,94 @@ public class AvionDAO {
         }
     }
 
+    /**
+     * Inserta varios aviones en una sola transacción, enviándolos en lotes del tamaño por defecto.
+     *
+     * @param aviones los aviones a insertar.
+     * @return los IDs generados y el rendimiento, o null si la inserción falla (no se inserta ninguno).
+     */
+    public static ResultadoLote insertarLote(Collection<Avion> aviones) throws SQLException {
+        return insertarLote(aviones, TAMANIO_LOTE);
+    }
+
+    /**
+     * Inserta varios aviones en una sola transacción. Las filas se acumulan con addBatch y se envían cada
+     * {@code tamanioLote} filas; con rewriteBatchedStatements el driver convierte cada lote en un único INSERT
+     * de varias filas.
+     *
+     * @param aviones     los aviones a insertar.
+     * @param tamanioLote filas por lote.
+     * @return los IDs generados, en el orden de la colección, y el rendimiento, o null si la inserción falla
+     * (se deshace entera). Dentro de una {@link Transaccion} abierta, el commit lo hace la transacción.
+     */
+    public static ResultadoLote insertarLote(Collection<Avion> aviones, int tamanioLote) throws SQLException {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo");
+        }
+        long inicio = System.nanoTime();
+        int[] ids = new int[aviones.size()];
+        long estadisticas = EstadisticasFlota.antesDeEscribir();
+        try (Transaccion transaccion = Transaccion.iniciar()) {
+            ConexionDB connection = new ConexionDB();
+            try {
+                String consulta = "INSERT INTO aviones (modelo, numero_asientos, velocidad_maxima, activado, id_aeropuerto) VALUES (?,?,?,?,?)";
+                PreparedStatement pstmt = connection.prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+                int leidos = 0;
+                int enLote = 0;
+                for (Avion avion : aviones) {
+                    pstmt.setString(1, avion.getModelo());
+                    pstmt.setInt(2, avion.getNumero_asientos());
+                    pstmt.setInt(3, avion.getVelocidad_maxima());
+                    pstmt.setBoolean(4, avion.isActivado());
+                    pstmt.setInt(5, avion.getAeropuerto().getId());
+                    pstmt.addBatch();
+                    if (++enLote == tamanioLote) {
+                        leidos = ejecutarLote(pstmt, ids, leidos);
+                        enLote = 0;
+                    }
+                }
+                if (enLote > 0) {
+                    leidos = ejecutarLote(pstmt, ids, leidos);
+                }
+                if (leidos != ids.length) {
+                    throw new SQLException("Se esperaban " + ids.length + " claves generadas y se han obtenido " + leidos);
+                }
+            } finally {
+                connection.CloseConexion();
+            }
+            // si el lote va dentro de una transacción del llamante, hasta su commit no hay nada que contar
+            Transaccion.alConfirmar(() -> {
+                EstadisticasFlota.alInsertar(aviones, estadisticas);
+                int i = 0;
+                for (Avion avion : aviones) {
+                    IndiceModelos.aniadir(avion.getModelo(), avion.getAeropuerto().getId());
+                    BusCambios.publicar(EventoCambio.creado(Avion.class, ids[i++], avion));
+                }
+            });
+            transaccion.confirmar();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
+            return null;
+        }
+        return new ResultadoLote(ids, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Envía el lote acumulado y copia las claves generadas a continuación de las ya leídas.
+     *
+     * @return el número total de claves leídas.
+     */
+    private static int ejecutarLote(PreparedStatement pstmt, int[] ids, int leidos) throws SQLException {
+        pstmt.executeBatch();
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (rs.next() && leidos < ids.length) {
+                ids[leidos++] = rs.getInt(1);
+            }
+        }
+        return leidos;
+    }
+
     /**
      * Elimina un avión de la base de datos.
      *
@@ -202,13 +649,22 @@ public class AvionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM aviones WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, avion.getId());
+            long estadisticas = EstadisticasFlota.antesDeEscribir();
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
+            if (filasAfectadas > 0) {
+                // dentro de una transacción, hasta el commit los demás no ven el cambio
+                Transaccion.alConfirmar(() -> {
+                    IndiceModelos.quitar(avion.getModelo(), avion.getAeropuerto().getId());
+                    EstadisticasFlota.alEliminar(avion, estadisticas);
+                });
+                BusCambios.publicar(EventoCambio.eliminado(Avion.class, avion.getId()));
+            }
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -228,13 +684,18 @@ public class AvionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM aviones WHERE id_aeropuerto = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, aeropuerto.getId());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
+            // se olvida después del commit; antes, otro hilo podría volver a leer los aviones que aún se ven
+            Transaccion.alConfirmar(() -> {
+                IndiceModelos.olvidar(aeropuerto.getId());
+                EstadisticasFlota.alEliminarAeropuerto(aeropuerto.getId());
+            });
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -0,0 +1,67 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.db.Transaccion;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Avisa de los cambios que guardan los DAO para que las pantallas actualicen la fila afectada en lugar de volver
+ * a leer el listado entero.
+ * <ul>
+ *     <li>Dentro de una {@link Transaccion} los eventos esperan al commit; si se deshace, no se publican.</li>
+ *     <li>Los suscriptores reciben los eventos en el hilo de JavaFX, en el orden en que se publicaron.</li>
+ *     <li>Los suscriptores se guardan con referencias débiles: quien se suscribe debe guardar el suyo en un campo,
+ *     y deja de recibir eventos cuando su pantalla se libera.</li>
+ * </ul>
+ */
+public class BusCambios {
+    private static final List<WeakReference<Consumer<EventoCambio<?>>>> suscriptores = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registra un suscriptor.
+     *
+     * @param suscriptor Recibe cada evento en el hilo de JavaFX.
+     */
+    public static void suscribir(Consumer<EventoCambio<?>> suscriptor) {
+        suscriptores.add(new WeakReference<>(suscriptor));
+    }
+
+    /**
+     * Quita un suscriptor registrado con {@link #suscribir}.
+     */
+    public static void cancelar(Consumer<EventoCambio<?>> suscriptor) {
+        suscriptores.removeIf(r -> r.get() == null || r.get() == suscriptor);
+    }
+
+    /**
+     * Publica un cambio. Si hay una transacción abierta en el hilo actual, se publica al hacer commit.
+     *
+     * @param evento El cambio guardado.
+     */
+    public static void publicar(EventoCambio<?> evento) {
+        Transaccion.alConfirmar(() -> {
+            if (!suscriptores.isEmpty()) {
+                EjecutorDAO.HILO_FX.execute(() -> entregar(evento));
+            }
+        });
+    }
+
+    private static void entregar(EventoCambio<?> evento) {
+        for (WeakReference<Consumer<EventoCambio<?>>> referencia : suscriptores) {
+            Consumer<EventoCambio<?>> suscriptor = referencia.get();
+            if (suscriptor == null) {
+                suscriptores.remove(referencia);
+                continue;
+            }
+            try {
+                suscriptor.accept(evento);
+            } catch (RuntimeException e) {
+                // un suscriptor que falla no impide avisar a los demás
+                System.err.println("Error al aplicar " + evento + ": " + e.getMessage());
+            }
+        }
+    }
+}
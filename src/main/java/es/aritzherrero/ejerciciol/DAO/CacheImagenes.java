@@ -0,0 +1,267 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Caché de dos niveles para las imágenes de los aeropuertos.
+ * <ul>
+ *     <li>Memoria: imágenes ya decodificadas, con {@link SoftReference} (el GC las libera si falta memoria) y un
+ *     máximo de bytes (LRU).</li>
+ *     <li>Disco: miniaturas reducidas en un directorio local, con nombre ID del aeropuerto + hash del contenido.</li>
+ * </ul>
+ * El hash lo calcula la base de datos, así que comprobar si la imagen ha cambiado no transfiere el BLOB. El último hash
+ * de cada aeropuerto se recuerda hasta que {@link #olvidar(int)} avisa de que su imagen ha cambiado, de modo que un
+ * acierto en memoria no consulta la base de datos.
+ */
+public class CacheImagenes {
+    private static final int MAGICO = 0x4D494E49; // "MINI"
+    private static final long MAX_BYTES_MEMORIA = Long.getLong("ejerciciol.imagenes.memoriaBytes", 32L * 1024 * 1024);
+    private static final Path DIRECTORIO = Paths.get(System.getProperty("ejerciciol.imagenes.dir",
+            Paths.get(System.getProperty("user.home"), ".ejerciciol", "miniaturas").toString()));
+
+    private static final LinkedHashMap<String, EntradaMemoria> memoria = new LinkedHashMap<>(16, 0.75f, true);
+    // ID del aeropuerto → hash de su imagen en la última consulta
+    private static final Map<Integer, String> hashes = new ConcurrentHashMap<>();
+    // evita recordar un hash leído antes de un olvidar() que ha terminado mientras se leía
+    private static final AtomicLong version = new AtomicLong();
+    private static long bytesMemoria;
+
+    private static final LongAdder aciertosMemoria = new LongAdder();
+    private static final LongAdder aciertosDisco = new LongAdder();
+    private static final LongAdder fallos = new LongAdder();
+
+    /**
+     * Devuelve la imagen de un aeropuerto reducida para caber en un cuadrado del lado indicado.
+     * Busca primero en memoria con el último hash conocido; si no está, consulta el hash actual y busca en memoria y en
+     * disco, y si tampoco está, la lee de la base de datos y la guarda en ambos niveles.
+     *
+     * @param aeropuerto Aeropuerto con su referencia a la imagen.
+     * @param lado       Lado máximo en píxeles.
+     * @return La imagen, o null si el aeropuerto no tiene imagen o no se puede leer.
+     */
+    public static Image getMiniatura(Aeropuerto aeropuerto, int lado) {
+        if (aeropuerto.getImagenDiferida() == null) {
+            return null;
+        }
+        int id = aeropuerto.getId();
+        String conocido = hashes.get(id);
+        Image imagen = conocido == null ? null : buscarEnMemoria(clave(id, conocido, lado));
+        if (imagen != null) {
+            aciertosMemoria.increment();
+            return imagen;
+        }
+        String hash;
+        long leida = version.get();
+        try {
+            hash = AeropuertoDAO.getHashImagen(id);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+        if (hash == null) {
+            hashes.remove(id);
+            return null;
+        }
+        if (leida == version.get()) {
+            hashes.put(id, hash);
+        }
+        String clave = clave(id, hash, lado);
+
+        if (!hash.equals(conocido)) {
+            imagen = buscarEnMemoria(clave);
+            if (imagen != null) {
+                aciertosMemoria.increment();
+                return imagen;
+            }
+        }
+        imagen = leerDeDisco(clave);
+        if (imagen != null) {
+            aciertosDisco.increment();
+            guardarEnMemoria(clave, imagen);
+            return imagen;
+        }
+        fallos.increment();
+        try {
+            imagen = aeropuerto.getImagenDiferida().leer(in -> new Image(in, lado, lado, true, true));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+        if (imagen == null || imagen.isError()) {
+            return null;
+        }
+        guardarEnMemoria(clave, imagen);
+        guardarEnDisco(id, lado, clave, imagen);
+        return imagen;
+    }
+
+    /**
+     * Olvida el hash conocido de la imagen de un aeropuerto, para que la siguiente petición compruebe si ha cambiado.
+     * Se llama cuando se modifica o se borra el aeropuerto, aquí o en otro cliente.
+     *
+     * @param idAeropuerto ID del aeropuerto.
+     */
+    public static void olvidar(int idAeropuerto) {
+        version.incrementAndGet();
+        hashes.remove(idAeropuerto);
+    }
+
+    private static String clave(int idAeropuerto, String hash, int lado) {
+        return idAeropuerto + "-" + hash + "-" + lado;
+    }
+
+
+    public static long getAciertosMemoria() {
+        return aciertosMemoria.sum();
+    }
+
+
+    public static long getAciertosDisco() {
+        return aciertosDisco.sum();
+    }
+
+
+    public static long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * @return Proporción de peticiones servidas sin leer la imagen de la base de datos, entre 0 y 1.
+     */
+    public static double getTasaAciertos() {
+        long aciertos = aciertosMemoria.sum() + aciertosDisco.sum();
+        long total = aciertos + fallos.sum();
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+
+    public static synchronized long getBytesMemoria() {
+        return bytesMemoria;
+    }
+
+    private static synchronized Image buscarEnMemoria(String clave) {
+        EntradaMemoria entrada = memoria.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        Image imagen = entrada.imagen.get();
+        if (imagen == null) {
+            // la ha recogido el GC
+            memoria.remove(clave);
+            bytesMemoria -= entrada.bytes;
+        }
+        return imagen;
+    }
+
+    private static synchronized void guardarEnMemoria(String clave, Image imagen) {
+        long bytes = (long) imagen.getWidth() * (long) imagen.getHeight() * 4;
+        if (bytes > MAX_BYTES_MEMORIA) {
+            return;
+        }
+        EntradaMemoria previa = memoria.put(clave, new EntradaMemoria(new SoftReference<>(imagen), bytes));
+        if (previa != null) {
+            bytesMemoria -= previa.bytes;
+        }
+        bytesMemoria += bytes;
+        Iterator<Map.Entry<String, EntradaMemoria>> it = memoria.entrySet().iterator();
+        while (bytesMemoria > MAX_BYTES_MEMORIA && it.hasNext()) {
+            bytesMemoria -= it.next().getValue().bytes;
+            it.remove();
+        }
+    }
+
+    private static Image leerDeDisco(String clave) {
+        Path fichero = DIRECTORIO.resolve(clave + ".mini");
+        if (!Files.isRegularFile(fichero)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(fichero))))) {
+            if (in.readInt() != MAGICO) {
+                return null;
+            }
+            int ancho = in.readInt();
+            int alto = in.readInt();
+            int[] pixeles = new int[ancho * alto];
+            for (int i = 0; i < pixeles.length; i++) {
+                pixeles[i] = in.readInt();
+            }
+            WritableImage imagen = new WritableImage(ancho, alto);
+            imagen.getPixelWriter().setPixels(0, 0, ancho, alto, PixelFormat.getIntArgbInstance(), pixeles, 0, ancho);
+            return imagen;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda la miniatura en disco y borra las de versiones anteriores de la imagen del mismo aeropuerto con el mismo
+     * lado; las de otros lados son de la misma imagen o se borran cuando se vuelvan a guardar.
+     */
+    private static void guardarEnDisco(int idAeropuerto, int lado, String clave, Image imagen) {
+        int ancho = (int) imagen.getWidth();
+        int alto = (int) imagen.getHeight();
+        int[] pixeles = new int[ancho * alto];
+        imagen.getPixelReader().getPixels(0, 0, ancho, alto, PixelFormat.getIntArgbInstance(), pixeles, 0, ancho);
+        try {
+            Files.createDirectories(DIRECTORIO);
+            Path actual = DIRECTORIO.resolve(clave + ".mini");
+            try (DirectoryStream<Path> antiguas = Files.newDirectoryStream(DIRECTORIO,
+                    idAeropuerto + "-*-" + lado + ".mini")) {
+                for (Path antigua : antiguas) {
+                    if (!antigua.equals(actual)) {
+                        Files.deleteIfExists(antigua);
+                    }
+                }
+            }
+            Path temporal = Files.createTempFile(DIRECTORIO, clave, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(temporal))))) {
+                out.writeInt(MAGICO);
+                out.writeInt(ancho);
+                out.writeInt(alto);
+                for (int pixel : pixeles) {
+                    out.writeInt(pixel);
+                }
+            }
+            Files.move(temporal, actual, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static final class EntradaMemoria {
+        final SoftReference<Image> imagen;
+        final long bytes;
+
+        EntradaMemoria(SoftReference<Image> imagen, long bytes) {
+            this.imagen = imagen;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caché en memoria con caducidad por tiempo y tamaño acotado.
+ * Cada entrada tiene un peso (por ejemplo, el número de elementos de una lista); cuando la suma de pesos supera
+ * el máximo se expulsan las entradas menos usadas recientemente. Es segura para usar desde varios hilos.
+ *
+ * @param <K> Tipo de la clave.
+ * @param <V> Tipo del valor.
+ */
+public class CacheTTL<K, V> {
+    private final long pesoMaximo;
+    private final long ttlMs;
+    private final ToIntFunction<V> peso;
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long pesoActual;
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    /**
+     * Crea la caché.
+     *
+     * @param pesoMaximo Suma máxima de pesos que se mantiene en memoria.
+     * @param ttlMs      Milisegundos que vive una entrada desde que se guarda.
+     * @param peso       Función que calcula el peso de un valor.
+     */
+    public CacheTTL(long pesoMaximo, long ttlMs, ToIntFunction<V> peso) {
+        this.pesoMaximo = pesoMaximo;
+        this.ttlMs = ttlMs;
+        this.peso = peso;
+    }
+
+    /**
+     * Devuelve el valor guardado para la clave si no ha caducado.
+     *
+     * @param clave Clave buscada.
+     * @return El valor, o null si no está o ha caducado.
+     */
+    public synchronized V get(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada != null && entrada.caduca < System.currentTimeMillis()) {
+            quitar(clave);
+            entrada = null;
+        }
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return entrada.valor;
+    }
+
+    /**
+     * Guarda un valor. Si pesa más que el máximo de la caché no se guarda.
+     *
+     * @param clave Clave.
+     * @param valor Valor.
+     */
+    public synchronized void put(K clave, V valor) {
+        quitar(clave);
+        int pesoValor = peso.applyAsInt(valor);
+        if (pesoValor > pesoMaximo) {
+            return;
+        }
+        entradas.put(clave, new Entrada<>(valor, pesoValor, System.currentTimeMillis() + ttlMs));
+        pesoActual += pesoValor;
+        Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+        while (pesoActual > pesoMaximo && it.hasNext()) {
+            pesoActual -= it.next().getValue().peso;
+            it.remove();
+            expulsiones++;
+        }
+    }
+
+    /**
+     * Quita una clave de la caché.
+     *
+     * @param clave Clave a invalidar.
+     */
+    public synchronized void invalidar(K clave) {
+        quitar(clave);
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public synchronized void invalidarTodo() {
+        entradas.clear();
+        pesoActual = 0;
+    }
+
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+
+
+    public synchronized long getPesoActual() {
+        return pesoActual;
+    }
+
+    private void quitar(K clave) {
+        Entrada<V> previa = entradas.remove(clave);
+        if (previa != null) {
+            pesoActual -= previa.peso;
+        }
+    }
+
+    private static final class Entrada<V> {
+        final V valor;
+        final int peso;
+        final long caduca;
+
+        Entrada(V valor, int peso, long caduca) {
+            this.valor = valor;
+            this.peso = peso;
+            this.caduca = caduca;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Carga en segundo plano de la que solo interesa el último resultado, por ejemplo los aviones del aeropuerto
+ * seleccionado en un ComboBox. Cada nueva carga cancela la anterior, y si la anterior termina de todos modos su
+ * resultado se descarta, así que una respuesta lenta nunca sobrescribe la de una selección posterior.
+ * <p>
+ * Se usa desde el hilo de JavaFX: tanto {@link #cargar} como {@link #cancelar} y las funciones de respuesta se
+ * ejecutan en él.
+ */
+public class CargaAsincrona<T> {
+    private long generacion;
+    private CompletableFuture<T> enCurso;
+
+    /**
+     * Cancela la carga anterior, si la hay, y lanza una nueva.
+     *
+     * @param consulta   Llamada a los DAO.
+     * @param alTerminar Recibe el resultado en el hilo de JavaFX, si esta sigue siendo la última carga.
+     * @param alFallar   Recibe el error en el hilo de JavaFX, si esta sigue siendo la última carga.
+     */
+    public void cargar(EjecutorDAO.Consulta<T> consulta, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        cancelar();
+        long esta = generacion;
+        enCurso = EjecutorDAO.ejecutar(consulta, valor -> {
+            if (esta == generacion) {
+                enCurso = null;
+                alTerminar.accept(valor);
+            }
+        }, error -> {
+            if (esta == generacion) {
+                enCurso = null;
+                alFallar.accept(error);
+            }
+        });
+    }
+
+    /**
+     * Cancela la carga en curso. Su resultado, si llega, se descarta.
+     */
+    public void cancelar() {
+        generacion++;
+        if (enCurso != null) {
+            enCurso.cancel(true);
+            enCurso = null;
+        }
+    }
+
+    /**
+     * @return true si hay una carga lanzada que todavía no ha entregado su resultado.
+     */
+    public boolean enCurso() {
+        return enCurso != null;
+    }
+}
@@ -0,0 +1,99 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.db.Transaccion;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catálogo de aeropuertos compartido por toda la aplicación.
+ * Guarda en memoria el listado de {@link AeropuertoDAO#cargarListado()} con caducidad y tamaño máximo, de modo que
+ * abrir las ventanas de aviones no vuelve a consultar la base de datos. Las escrituras de AeropuertoDAO y DireccionDAO
+ * lo invalidan, y si están dentro de una transacción lo vuelven a invalidar tras el commit.
+ */
+public class CatalogoAeropuertos {
+    private static final String LISTADO = "listado";
+    private static final long TTL_MS = Long.getLong("ejerciciol.catalogo.ttlMs", 5 * 60_000L);
+    private static final long MAXIMO = Long.getLong("ejerciciol.catalogo.max", 50_000L);
+
+    private static final CacheTTL<String, List<Aeropuerto>> listados = new CacheTTL<>(MAXIMO, TTL_MS, List::size);
+    private static final CacheTTL<Integer, Aeropuerto> porId = new CacheTTL<>(MAXIMO, TTL_MS, a -> 1);
+    // evita guardar un listado leído antes de una invalidación que ha terminado mientras se leía
+    private static final AtomicLong version = new AtomicLong();
+
+    /**
+     * Devuelve todos los aeropuertos, cargándolos solo si no están en memoria o han caducado.
+     *
+     * @return Una lista nueva con los aeropuertos del catálogo; se puede modificar sin afectar a la caché.
+     * @throws SQLException si no se han podido leer; en ese caso no se guarda nada y se vuelve a intentar en la
+     *                      siguiente llamada.
+     */
+    public static ObservableList<Aeropuerto> getListado() throws SQLException {
+        List<Aeropuerto> aeropuertos = listados.get(LISTADO);
+        if (aeropuertos == null) {
+            long leida = version.get();
+            List<Aeropuerto> leidos = AeropuertoDAO.cargarListado();
+            if (leidos == null) {
+                throw new SQLException("No se pudo cargar el catálogo de aeropuertos");
+            }
+            aeropuertos = List.copyOf(leidos);
+            if (leida == version.get()) {
+                listados.put(LISTADO, aeropuertos);
+                for (Aeropuerto aeropuerto : aeropuertos) {
+                    porId.put(aeropuerto.getId(), aeropuerto);
+                }
+            }
+        }
+        return FXCollections.observableArrayList(aeropuertos);
+    }
+
+    /**
+     * Devuelve un aeropuerto del catálogo, consultándolo solo si no está en memoria.
+     *
+     * @param id ID del aeropuerto.
+     * @return El aeropuerto, o null si no existe.
+     */
+    public static Aeropuerto getAeropuerto(int id) throws SQLException {
+        Aeropuerto aeropuerto = porId.get(id);
+        if (aeropuerto == null) {
+            long leida = version.get();
+            aeropuerto = AeropuertoDAO.getAeropuerto(id);
+            if (aeropuerto != null && leida == version.get()) {
+                porId.put(id, aeropuerto);
+            }
+        }
+        return aeropuerto;
+    }
+
+    /**
+     * Descarta el catálogo. Se llama tras cualquier escritura sobre aeropuertos o direcciones.
+     * Dentro de una {@link Transaccion} se vuelve a descartar al hacer commit: hasta entonces otro hilo puede leer
+     * las filas anteriores y guardarlas en la caché.
+     */
+    public static void invalidar() {
+        descartar();
+        if (Transaccion.activa()) {
+            Transaccion.alConfirmar(CatalogoAeropuertos::descartar);
+        }
+    }
+
+    private static void descartar() {
+        version.incrementAndGet();
+        listados.invalidarTodo();
+        porId.invalidarTodo();
+    }
+
+
+    public static long getAciertos() {
+        return listados.getAciertos() + porId.getAciertos();
+    }
+
+
+    public static long getFallos() {
+        return listados.getFallos() + porId.getFallos();
+    }
+}
@@ -2,6 +2,7 @@ package es.aritzherrero.ejerciciol.DAO;
 
 import es.aritzherrero.ejerciciol.Modelo.Direccion;
 import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.Transaccion;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -16,25 +17,28 @@ public class DireccionDAO {
      * @return Dirección correspondiente al ID o null si no se encuentra.
      */
     public static Direccion getDireccion(int id) throws SQLException {
+        Direccion direccion = MapaIdentidad.buscarEnActual(MapaIdentidad.DIRECCIONES, id, Direccion.class);
+        if (direccion != null) {
+            return direccion;
+        }
         ConexionDB connection = null;
-        Direccion direccion = null;
         try {
             connection = new ConexionDB();
             String consulta = "SELECT id, pais, ciudad, calle, numero FROM direcciones WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String pais = rs.getString("pais");
-                String ciudad = rs.getString("ciudad");
-                String calle = rs.getString("calle");
-                int numero = rs.getInt("numero");
-                direccion = new Direccion(id, pais, ciudad, calle, numero);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String pais = rs.getString("pais");
+                    String ciudad = rs.getString("ciudad");
+                    String calle = rs.getString("calle");
+                    int numero = rs.getInt("numero");
+                    direccion = MapaIdentidad.registrarEnActual(MapaIdentidad.DIRECCIONES, id, new Direccion(id, pais, ciudad, calle, numero));
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
         } finally {
             if (connection != null) {
                 connection.CloseConexion();
@@ -43,6 +47,28 @@ public class DireccionDAO {
         return direccion;
     }
 
+    /**
+     * Construye una dirección a partir de la fila actual de una consulta que hace JOIN con direcciones.
+     * La consulta debe traer id_direccion, pais, ciudad, calle y numero. Si hay un mapa de identidad abierto
+     * y la dirección ya se había construido, se devuelve esa misma instancia.
+     *
+     * @param rs ResultSet posicionado en la fila.
+     * @return La dirección de la fila, o null si el JOIN no encontró dirección.
+     */
+    static Direccion mapearDireccion(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id_direccion");
+        Direccion direccion = MapaIdentidad.buscarEnActual(MapaIdentidad.DIRECCIONES, id, Direccion.class);
+        if (direccion != null) {
+            return direccion;
+        }
+        String pais = rs.getString("pais");
+        if (pais == null && rs.getString("ciudad") == null) {
+            return null;
+        }
+        direccion = new Direccion(id, pais, rs.getString("ciudad"), rs.getString("calle"), rs.getInt("numero"));
+        return MapaIdentidad.registrarEnActual(MapaIdentidad.DIRECCIONES, id, direccion);
+    }
+
     /**
      * Modifica los datos de una dirección en la base de datos.
      *
@@ -55,18 +81,19 @@ public class DireccionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "UPDATE direcciones SET pais = ?, ciudad = ?, calle = ?, numero = ? WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setString(1, direccionNueva.getPais());
             pstmt.setString(2, direccionNueva.getCiudad());
             pstmt.setString(3, direccionNueva.getCalle());
             pstmt.setInt(4, direccionNueva.getNumero());
             pstmt.setInt(5, direccion.getId());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
+            CatalogoAeropuertos.invalidar();
             System.out.println("Actualizada dirección");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -86,7 +113,7 @@ public class DireccionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "INSERT INTO direcciones (pais, ciudad, calle, numero) VALUES (?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+            PreparedStatement pstmt = connection.prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, direccion.getPais());
             pstmt.setString(2, direccion.getCiudad());
             pstmt.setString(3, direccion.getCalle());
@@ -94,19 +121,16 @@ public class DireccionDAO {
             int filasAfectadas = pstmt.executeUpdate();
             System.out.println("Nueva entrada en dirección");
             if (filasAfectadas > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    int id = rs.getInt(1);
-                    rs.close();
-                    pstmt.close();
-                    return id;
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
                 }
-                rs.close();
             }
-            pstmt.close();
             return -1;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return -1;
         } finally {
             if (connection != null) {
@@ -126,14 +150,15 @@ public class DireccionDAO {
         try {
             connection = new ConexionDB();
             String consulta = "DELETE FROM direcciones WHERE id = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setInt(1, direccion.getId());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
+            CatalogoAeropuertos.invalidar();
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            Transaccion.marcarSoloRollback();
             return false;
         } finally {
             if (connection != null) {
@@ -0,0 +1,103 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta llamadas a los DAO fuera del hilo de JavaFX, cada una en su propio hilo virtual.
+ * Los hilos virtuales se bloquean en JDBC sin ocupar un hilo del sistema, así que no hace falta dimensionar un pool:
+ * el límite real lo pone el pool de conexiones.
+ *
+ * <pre>
+ * EjecutorDAO.ejecutar(() -&gt; AvionDAO.cargarListado(aeropuerto),
+ *         aviones -&gt; cbAvion.setItems(aviones),
+ *         error -&gt; alerta("No se pudieron cargar los aviones"));
+ * </pre>
+ */
+public class EjecutorDAO {
+    private static final ExecutorService EJECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Ejecutor que pasa las tareas al hilo de JavaFX.
+     */
+    public static final Executor HILO_FX = Platform::runLater;
+
+    /**
+     * Lanza una consulta en un hilo virtual.
+     * Cancelar el futuro interrumpe el hilo; si el driver no atiende la interrupción, la consulta termina igualmente
+     * pero su resultado se descarta.
+     *
+     * @param consulta Llamada a los DAO.
+     * @return Futuro que se completa en el hilo virtual con el resultado de la consulta.
+     */
+    public static <T> CompletableFuture<T> enSegundoPlano(Consulta<T> consulta) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        Future<?> tarea = EJECUTOR.submit(() -> {
+            try {
+                resultado.complete(consulta.ejecutar());
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            }
+        });
+        resultado.whenComplete((valor, error) -> {
+            if (resultado.isCancelled()) {
+                tarea.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Lanza una consulta en un hilo virtual y entrega el resultado, o el error, en el hilo de JavaFX.
+     *
+     * @param consulta   Llamada a los DAO.
+     * @param alTerminar Recibe el resultado en el hilo de JavaFX.
+     * @param alFallar   Recibe el error en el hilo de JavaFX. No se llama si el futuro se cancela.
+     * @return El futuro de la consulta, que se puede cancelar.
+     */
+    public static <T> CompletableFuture<T> ejecutar(Consulta<T> consulta, Consumer<T> alTerminar,
+                                                    Consumer<Throwable> alFallar) {
+        CompletableFuture<T> futuro = enSegundoPlano(consulta);
+        futuro.whenCompleteAsync((valor, error) -> {
+            if (futuro.isCancelled()) {
+                return;
+            }
+            if (error == null) {
+                alTerminar.accept(valor);
+            } else {
+                alFallar.accept(causa(error));
+            }
+        }, HILO_FX);
+        return futuro;
+    }
+
+    /**
+     * Deja de aceptar consultas. Las que estén en marcha terminan. Se llama al salir de la aplicación.
+     */
+    public static void cerrar() {
+        EJECUTOR.shutdown();
+    }
+
+    /**
+     * Quita el envoltorio que añade CompletableFuture a las excepciones.
+     */
+    static Throwable causa(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Llamada a los DAO que se ejecuta en segundo plano.
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        T ejecutar() throws SQLException;
+    }
+}
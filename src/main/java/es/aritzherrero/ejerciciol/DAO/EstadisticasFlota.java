@@ -0,0 +1,398 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.Modelo.ResumenFlota;
+import es.aritzherrero.ejerciciol.db.Transaccion;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de la flota de cada aeropuerto (aviones, activados, asientos y velocidad máxima) mantenidas en memoria.
+ * La primera vez que se pide un aeropuerto se calcula con {@link AvionDAO#getResumenFlota}; a partir de ahí las
+ * escrituras de AvionDAO las actualizan sumando y restando, así que leerlas no vuelve a recorrer los aviones.
+ * <ul>
+ *     <li>Se guardan en una tabla hash de direccionamiento abierto sobre arrays de primitivos, sin objetos por
+ *     aeropuerto.</li>
+ *     <li>La velocidad máxima no se puede restar: si se quita el avión más rápido, se marca como pendiente y se
+ *     recalcula al leerla.</li>
+ *     <li>Las escrituras se suman al confirmar la transacción. Si entre la escritura y el commit el mapa ha cambiado
+ *     (otra escritura o un resumen recién calculado), no se sabe si ya la incluye, así que el aeropuerto se olvida
+ *     y se vuelve a calcular la próxima vez.</li>
+ *     <li>{@link #verificar()} compara todo el mapa con la base de datos y corrige lo que no cuadre;
+ *     {@link #reconstruir()} lo vuelve a calcular todo. Ninguno de los dos necesita el registro de cambios.</li>
+ *     <li>Cuando {@link SincronizadorCambios} trae cambios de aviones, {@link #verificar(Collection)} compara solo
+ *     los aeropuertos afectados. Los cambios de este mismo cliente también llegan, y como ya se habían sumado
+ *     coinciden y se conservan.</li>
+ * </ul>
+ */
+public class EstadisticasFlota {
+    private static final MapaEstadisticas mapa = new MapaEstadisticas(64);
+    // cambia con cada cambio del mapa; evita guardar o sumar sobre un resumen que otra escritura dejaba desfasado
+    private static long version;
+
+    /**
+     * Devuelve el resumen de la flota de un aeropuerto, calculándolo solo si no se tiene en memoria.
+     *
+     * @param aeropuerto El aeropuerto.
+     * @return El resumen, o null si no se ha podido calcular.
+     */
+    public static ResumenFlota getResumen(Aeropuerto aeropuerto) throws SQLException {
+        long leida;
+        synchronized (mapa) {
+            int i = mapa.buscar(aeropuerto.getId());
+            if (i >= 0 && !mapa.velocidadPendiente[i]) {
+                return mapa.resumen(i);
+            }
+            leida = version;
+        }
+        ResumenFlota resumen = AvionDAO.getResumenFlota(aeropuerto);
+        if (resumen != null && !Transaccion.activa()) {
+            synchronized (mapa) {
+                if (leida == version) {
+                    version++;
+                    mapa.poner(resumen);
+                }
+            }
+        }
+        return resumen;
+    }
+
+    /**
+     * Compara las estadísticas en memoria con las de la base de datos, calculadas en una sola consulta agrupada,
+     * y corrige las que no coinciden.
+     *
+     * @return Número de aeropuertos que no coincidían, o -1 si no se ha podido consultar.
+     */
+    public static int verificar() throws SQLException {
+        long leida;
+        List<Integer> enMemoria = new ArrayList<>();
+        synchronized (mapa) {
+            for (int id : mapa.claves()) {
+                enMemoria.add(id);
+            }
+            leida = version;
+        }
+        if (enMemoria.isEmpty()) {
+            return 0;
+        }
+        int diferencias = corregir(enMemoria, AvionDAO.getResumenesFlota(), leida);
+        if (diferencias > 0) {
+            System.err.println("Estadísticas de flota corregidas en " + diferencias + " aeropuertos");
+        }
+        return diferencias;
+    }
+
+    /**
+     * Compara las estadísticas en memoria de unos aeropuertos con las de la base de datos, calculadas en una sola
+     * consulta agrupada, y corrige las que no coinciden. Los aeropuertos que no están en memoria no se consultan.
+     *
+     * @param idsAeropuerto IDs de los aeropuertos cuyos aviones han cambiado.
+     * @return Número de aeropuertos que no coincidían, o -1 si no se ha podido consultar.
+     */
+    public static int verificar(Collection<Integer> idsAeropuerto) throws SQLException {
+        long leida;
+        List<Integer> enMemoria = new ArrayList<>();
+        synchronized (mapa) {
+            for (int id : idsAeropuerto) {
+                if (mapa.buscar(id) >= 0) {
+                    enMemoria.add(id);
+                }
+            }
+            leida = version;
+        }
+        if (enMemoria.isEmpty()) {
+            return 0;
+        }
+        return corregir(enMemoria, AvionDAO.getResumenesFlota(enMemoria), leida);
+    }
+
+    /**
+     * Vuelve a calcular las estadísticas de todos los aeropuertos con aviones en una sola consulta agrupada.
+     * Si alguna escritura cambia el mapa mientras se consulta, solo se vacía y cada aeropuerto se calcula cuando
+     * se pida.
+     *
+     * @return true si se han reconstruido.
+     */
+    public static boolean reconstruir() throws SQLException {
+        long leida;
+        synchronized (mapa) {
+            leida = version;
+        }
+        Map<Integer, ResumenFlota> reales = AvionDAO.getResumenesFlota();
+        if (reales == null) {
+            return false;
+        }
+        synchronized (mapa) {
+            boolean vigente = leida == version;
+            version++;
+            mapa.vaciar();
+            if (vigente) {
+                for (ResumenFlota resumen : reales.values()) {
+                    mapa.poner(resumen);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Corrige los aeropuertos indicados con los resúmenes leídos. Si el mapa ha cambiado mientras se consultaba,
+     * no se sabe si la consulta incluye ese cambio, así que esos aeropuertos se olvidan.
+     */
+    private static int corregir(List<Integer> enMemoria, Map<Integer, ResumenFlota> reales, long leida) {
+        if (reales == null) {
+            return -1;
+        }
+        int diferencias = 0;
+        synchronized (mapa) {
+            boolean vigente = leida == version;
+            version++;
+            for (int id : enMemoria) {
+                int i = mapa.buscar(id);
+                if (i < 0) {
+                    continue;
+                }
+                if (!vigente) {
+                    mapa.quitar(id);
+                    continue;
+                }
+                ResumenFlota real = reales.getOrDefault(id, new ResumenFlota(id, 0, 0, 0, 0));
+                if (mapa.velocidadPendiente[i]) {
+                    mapa.poner(real);
+                } else if (!mapa.coincide(i, real)) {
+                    diferencias++;
+                    mapa.poner(real);
+                }
+            }
+        }
+        return diferencias;
+    }
+
+    /**
+     * @return Número de aeropuertos con estadísticas en memoria.
+     */
+    public static int getAeropuertosEnMemoria() {
+        synchronized (mapa) {
+            return mapa.tamanio;
+        }
+    }
+
+    /**
+     * Se llama antes de escribir en la tabla de aviones. El valor devuelto se pasa a {@link #alInsertar},
+     * {@link #alEliminar} o {@link #alModificar} cuando se confirma la escritura.
+     */
+    static long antesDeEscribir() {
+        synchronized (mapa) {
+            return version;
+        }
+    }
+
+    static void alInsertar(Avion avion, long desde) {
+        aplicar(desde, List.of(), List.of(avion));
+    }
+
+    static void alInsertar(Collection<Avion> aviones, long desde) {
+        aplicar(desde, List.of(), aviones);
+    }
+
+    static void alEliminar(Avion avion, long desde) {
+        aplicar(desde, List.of(avion), List.of());
+    }
+
+    static void alModificar(Avion antes, Avion despues, long desde) {
+        aplicar(desde, List.of(antes), List.of(despues));
+    }
+
+    static void alEliminarAeropuerto(int idAeropuerto) {
+        olvidar(idAeropuerto);
+    }
+
+    /**
+     * Descarta las estadísticas de un aeropuerto, por ejemplo si se ha borrado.
+     * Se vuelven a calcular la próxima vez que se pidan.
+     */
+    static void olvidar(int idAeropuerto) {
+        synchronized (mapa) {
+            version++;
+            mapa.quitar(idAeropuerto);
+        }
+    }
+
+    private static void aplicar(long desde, Collection<Avion> quitados, Collection<Avion> aniadidos) {
+        synchronized (mapa) {
+            boolean vigente = desde == version;
+            version++;
+            for (Avion avion : quitados) {
+                sumar(avion, -1, vigente);
+            }
+            for (Avion avion : aniadidos) {
+                sumar(avion, 1, vigente);
+            }
+        }
+    }
+
+    private static void sumar(Avion avion, int signo, boolean vigente) {
+        int idAeropuerto = avion.getAeropuerto().getId();
+        if (!vigente) {
+            mapa.quitar(idAeropuerto);
+            return;
+        }
+        int i = mapa.buscar(idAeropuerto);
+        if (i < 0) {
+            // no se conoce el aeropuerto; se calculará entero cuando se pida
+            return;
+        }
+        mapa.totales[i] += signo;
+        mapa.activados[i] += avion.isActivado() ? signo : 0;
+        mapa.asientos[i] += (long) signo * avion.getNumero_asientos();
+        if (signo > 0) {
+            mapa.velocidades[i] = Math.max(mapa.velocidades[i], avion.getVelocidad_maxima());
+        } else if (avion.getVelocidad_maxima() >= mapa.velocidades[i]) {
+            mapa.velocidadPendiente[i] = true;
+        }
+    }
+
+    /**
+     * Tabla hash de claves int con sondeo lineal. Las claves son IDs de aeropuerto, siempre positivos, así que el 0
+     * marca un hueco libre. Al borrar se desplazan los elementos siguientes para no dejar marcas de borrado.
+     */
+    static final class MapaEstadisticas {
+        int[] claves;
+        int[] totales;
+        int[] activados;
+        long[] asientos;
+        int[] velocidades;
+        boolean[] velocidadPendiente;
+        int tamanio;
+
+        MapaEstadisticas(int capacidad) {
+            reservar(capacidad);
+        }
+
+        private void reservar(int capacidad) {
+            claves = new int[capacidad];
+            totales = new int[capacidad];
+            activados = new int[capacidad];
+            asientos = new long[capacidad];
+            velocidades = new int[capacidad];
+            velocidadPendiente = new boolean[capacidad];
+            tamanio = 0;
+        }
+
+        private int inicio(int clave) {
+            int h = clave * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (claves.length - 1);
+        }
+
+        /**
+         * @return La posición de la clave, o -1 si no está.
+         */
+        int buscar(int clave) {
+            for (int i = inicio(clave); claves[i] != 0; i = (i + 1) & (claves.length - 1)) {
+                if (claves[i] == clave) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void poner(ResumenFlota resumen) {
+            if ((tamanio + 1) * 2 > claves.length) {
+                crecer();
+            }
+            int i = inicio(resumen.getIdAeropuerto());
+            while (claves[i] != 0 && claves[i] != resumen.getIdAeropuerto()) {
+                i = (i + 1) & (claves.length - 1);
+            }
+            if (claves[i] == 0) {
+                claves[i] = resumen.getIdAeropuerto();
+                tamanio++;
+            }
+            totales[i] = resumen.getTotal();
+            activados[i] = resumen.getActivados();
+            asientos[i] = resumen.getAsientos();
+            velocidades[i] = resumen.getVelocidadMaxima();
+            velocidadPendiente[i] = false;
+        }
+
+        void quitar(int clave) {
+            int i = buscar(clave);
+            if (i < 0) {
+                return;
+            }
+            int mascara = claves.length - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mascara;
+                if (claves[j] == 0) {
+                    break;
+                }
+                int k = inicio(claves[j]);
+                // mueve j al hueco i si su posición ideal k no está entre i (excluido) y j (incluido)
+                if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                    continue;
+                }
+                mover(j, i);
+                i = j;
+            }
+            claves[i] = 0;
+            tamanio--;
+        }
+
+        private void mover(int desde, int hasta) {
+            claves[hasta] = claves[desde];
+            totales[hasta] = totales[desde];
+            activados[hasta] = activados[desde];
+            asientos[hasta] = asientos[desde];
+            velocidades[hasta] = velocidades[desde];
+            velocidadPendiente[hasta] = velocidadPendiente[desde];
+        }
+
+        private void crecer() {
+            int[] viejasClaves = claves;
+            int[] viejosTotales = totales;
+            int[] viejosActivados = activados;
+            long[] viejosAsientos = asientos;
+            int[] viejasVelocidades = velocidades;
+            boolean[] viejasPendientes = velocidadPendiente;
+            reservar(viejasClaves.length * 2);
+            for (int i = 0; i < viejasClaves.length; i++) {
+                if (viejasClaves[i] != 0) {
+                    poner(new ResumenFlota(viejasClaves[i], viejosTotales[i], viejosActivados[i], viejosAsientos[i],
+                            viejasVelocidades[i]));
+                    velocidadPendiente[buscar(viejasClaves[i])] = viejasPendientes[i];
+                }
+            }
+        }
+
+        void vaciar() {
+            reservar(claves.length);
+        }
+
+        int[] claves() {
+            int[] resultado = new int[tamanio];
+            int n = 0;
+            for (int clave : claves) {
+                if (clave != 0) {
+                    resultado[n++] = clave;
+                }
+            }
+            return Arrays.copyOf(resultado, n);
+        }
+
+        ResumenFlota resumen(int i) {
+            return new ResumenFlota(claves[i], totales[i], activados[i], asientos[i], velocidades[i]);
+        }
+
+        boolean coincide(int i, ResumenFlota real) {
+            return totales[i] == real.getTotal() && activados[i] == real.getActivados()
+                    && asientos[i] == real.getAsientos() && velocidades[i] == real.getVelocidadMaxima();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cambio de una fila guardado por un DAO: qué tipo de objeto es, su ID y cómo ha quedado.
+ * Lo publica {@link BusCambios} para que las pantallas actualicen solo esa fila.
+ *
+ * @param <T> Clase del objeto cambiado (Aeropuerto, AeropuertoPublico, Avion...).
+ */
+public class EventoCambio<T> {
+    /**
+     * Qué le ha pasado a la fila.
+     */
+    public enum Tipo { CREADO, MODIFICADO, ELIMINADO }
+
+    private final Tipo tipo;
+    private final Class<T> entidad;
+    private final int id;
+    private final T valor;
+
+
+    private EventoCambio(Tipo tipo, Class<T> entidad, int id, T valor) {
+        this.tipo = tipo;
+        this.entidad = entidad;
+        this.id = id;
+        this.valor = valor;
+    }
+
+
+    public static <T> EventoCambio<T> creado(Class<T> entidad, int id, T valor) {
+        return new EventoCambio<>(Tipo.CREADO, entidad, id, valor);
+    }
+
+
+    public static <T> EventoCambio<T> modificado(Class<T> entidad, int id, T valor) {
+        return new EventoCambio<>(Tipo.MODIFICADO, entidad, id, valor);
+    }
+
+
+    public static <T> EventoCambio<T> eliminado(Class<T> entidad, int id) {
+        return new EventoCambio<>(Tipo.ELIMINADO, entidad, id, null);
+    }
+
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+
+    public Class<T> getEntidad() {
+        return entidad;
+    }
+
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Cómo ha quedado el objeto, o null si se ha eliminado.
+     */
+    public T getValor() {
+        return valor;
+    }
+
+    /**
+     * @return El objeto si el evento es de esa clase, o null si es de otra o se ha eliminado.
+     */
+    public <U> U getValor(Class<U> clase) {
+        return entidad == clase ? clase.cast(valor) : null;
+    }
+
+    /**
+     * Aplica el cambio a una lista de objetos de una clase: sustituye, añade o quita en su sitio el elemento con el
+     * mismo ID. Si el evento es de otra clase no hace nada.
+     *
+     * @param clase     Clase de los elementos de la lista.
+     * @param lista     Lista que se actualiza.
+     * @param id        ID de cada elemento.
+     * @param pertenece Si el objeto cambiado debe estar en la lista, por ejemplo si es del aeropuerto que se muestra.
+     * @return true si la lista ha cambiado.
+     */
+    public <U> boolean aplicar(Class<U> clase, List<U> lista, ToIntFunction<? super U> id, Predicate<? super U> pertenece) {
+        if (entidad != clase) {
+            return false;
+        }
+        int posicion = -1;
+        for (int i = 0; i < lista.size() && posicion < 0; i++) {
+            if (id.applyAsInt(lista.get(i)) == this.id) {
+                posicion = i;
+            }
+        }
+        U nuevo = getValor(clase);
+        boolean incluir = nuevo != null && pertenece.test(nuevo);
+        if (posicion >= 0 && incluir) {
+            lista.set(posicion, nuevo);
+        } else if (posicion >= 0) {
+            lista.remove(posicion);
+        } else if (incluir) {
+            lista.add(nuevo);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + " " + entidad.getSimpleName() + " " + id;
+    }
+}
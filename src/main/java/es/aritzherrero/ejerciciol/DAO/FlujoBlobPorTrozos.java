@@ -0,0 +1,99 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.db.ConexionDB;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Flujo que lee una columna BLOB por trozos con SUBSTRING, de modo que en memoria solo hay un trozo cada vez.
+ * El driver de MySQL materializa el BLOB completo si se lee con getBinaryStream, así que se pide trozo a trozo
+ * sobre la misma conexión mientras el flujo está abierto.
+ */
+class FlujoBlobPorTrozos extends InputStream {
+    private final ConexionDB connection;
+    private final String consulta;
+    private PreparedStatement pstmt;
+    private final int id;
+    private final long longitud;
+    private final int tamanioTrozo;
+    private byte[] trozo = new byte[0];
+    private int posicionTrozo;
+    private long leidos;
+
+    /**
+     * @param connection   Conexión prestada durante la lectura. No se cierra al cerrar el flujo.
+     * @param tabla        Tabla de la columna.
+     * @param columna      Columna BLOB.
+     * @param id           ID de la fila.
+     * @param longitud     Longitud total del BLOB en bytes.
+     * @param tamanioTrozo Bytes que se piden en cada consulta.
+     */
+    FlujoBlobPorTrozos(ConexionDB connection, String tabla, String columna, int id, long longitud, int tamanioTrozo) {
+        this.connection = connection;
+        this.consulta = "SELECT SUBSTRING(" + columna + ", ?, ?) FROM " + tabla + " WHERE id = ?";
+        this.id = id;
+        this.longitud = longitud;
+        this.tamanioTrozo = tamanioTrozo;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!hayDatos()) {
+            return -1;
+        }
+        return trozo[posicionTrozo++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!hayDatos()) {
+            return -1;
+        }
+        int n = Math.min(len, trozo.length - posicionTrozo);
+        System.arraycopy(trozo, posicionTrozo, b, off, n);
+        posicionTrozo += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return trozo.length - posicionTrozo;
+    }
+
+    private boolean hayDatos() throws IOException {
+        if (posicionTrozo < trozo.length) {
+            return true;
+        }
+        if (leidos >= longitud) {
+            return false;
+        }
+        try {
+            if (pstmt == null) {
+                pstmt = connection.prepareStatement(consulta);
+            }
+            pstmt.setLong(1, leidos + 1); // SUBSTRING empieza en 1
+            pstmt.setInt(2, tamanioTrozo);
+            pstmt.setInt(3, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                trozo = rs.next() ? rs.getBytes(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (trozo == null || trozo.length == 0) {
+            trozo = new byte[0];
+            leidos = longitud;
+            return false;
+        }
+        posicionTrozo = 0;
+        leidos += trozo.length;
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.db.Transaccion;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de los modelos de avión de cada aeropuerto, para saber si un (modelo, aeropuerto) ya existe
+ * sin consultar la base de datos. Solo conoce los aeropuertos cuyos aviones se han listado completos; para el resto
+ * {@link AvionDAO#existe} hace una consulta por el índice único.
+ * <p>
+ * Las escrituras de AvionDAO lo mantienen al día cuando se confirma la transacción. Un listado que se ha leído
+ * mientras se aplicaba alguna no se guarda, porque puede no incluirla.
+ */
+final class IndiceModelos {
+    private static final Map<Integer, Set<String>> modelos = new ConcurrentHashMap<>();
+    // cambia con cada escritura aplicada
+    private static long version;
+
+    private IndiceModelos() {}
+
+    /**
+     * @return true o false si se conocen los modelos del aeropuerto, o null si hay que preguntar a la base de datos.
+     */
+    static Boolean existe(String modelo, int idAeropuerto) {
+        Set<String> conocidos = modelos.get(idAeropuerto);
+        return conocidos == null ? null : conocidos.contains(modelo);
+    }
+
+    /**
+     * Se llama antes de leer un listado completo; el valor devuelto se pasa a {@link #cargar}.
+     */
+    static long antesDeLeer() {
+        synchronized (modelos) {
+            return version;
+        }
+    }
+
+    /**
+     * Guarda los modelos de un aeropuerto leídos de un listado completo de sus aviones. Dentro de una transacción
+     * no se guardan, porque la lectura puede incluir cambios que todavía se pueden deshacer, y tampoco si desde
+     * {@code leida} se ha aplicado alguna escritura.
+     */
+    static void cargar(int idAeropuerto, Collection<String> modelosAeropuerto, long leida) {
+        if (Transaccion.activa()) {
+            return;
+        }
+        Set<String> conocidos = ConcurrentHashMap.newKeySet();
+        conocidos.addAll(modelosAeropuerto);
+        synchronized (modelos) {
+            if (version == leida) {
+                modelos.put(idAeropuerto, conocidos);
+            }
+        }
+    }
+
+    static void aniadir(String modelo, int idAeropuerto) {
+        synchronized (modelos) {
+            version++;
+            Set<String> conocidos = modelos.get(idAeropuerto);
+            if (conocidos != null) {
+                conocidos.add(modelo);
+            }
+        }
+    }
+
+    static void quitar(String modelo, int idAeropuerto) {
+        synchronized (modelos) {
+            version++;
+            Set<String> conocidos = modelos.get(idAeropuerto);
+            if (conocidos != null) {
+                conocidos.remove(modelo);
+            }
+        }
+    }
+
+    /**
+     * Olvida los modelos de un aeropuerto, por ejemplo al borrar todos sus aviones o al fallar una escritura.
+     */
+    static void olvidar(int idAeropuerto) {
+        synchronized (modelos) {
+            version++;
+            modelos.remove(idAeropuerto);
+        }
+    }
+}
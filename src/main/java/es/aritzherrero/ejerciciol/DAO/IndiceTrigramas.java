@@ -0,0 +1,218 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Índice de trigramas sobre un texto de cada elemento (por ejemplo el nombre de un aeropuerto) para filtrar por
+ * "contiene" sin recorrer todos los textos en cada pulsación.
+ * <ul>
+ *     <li>Cada elemento ocupa un hueco con un número fijo; quitar un elemento deja su hueco vacío, así que los demás
+ *     no cambian de número y las listas del índice siguen siendo válidas.</li>
+ *     <li>Para una consulta de tres o más caracteres se cruzan las listas de sus trigramas y solo se comprueban
+ *     los candidatos que quedan.</li>
+ *     <li>Si la consulta contiene a la anterior (el usuario sigue escribiendo), se parte del resultado anterior en
+ *     lugar de volver al índice.</li>
+ * </ul>
+ * No es seguro para varios hilos; se usa desde el hilo de JavaFX.
+ */
+public class IndiceTrigramas<T> {
+    private final Function<T, String> texto;
+    private final List<String> textos = new ArrayList<>(); // por hueco, en minúsculas; null si se ha quitado
+    private final Map<T, Integer> huecos = new IdentityHashMap<>();
+    private final Map<Long, Huecos> trigramas = new HashMap<>();
+    private String ultimaConsulta;
+    private BitSet ultimoResultado;
+
+    /**
+     * @param elementos Elementos iniciales.
+     * @param texto     Texto de cada elemento por el que se filtra.
+     */
+    public IndiceTrigramas(List<? extends T> elementos, Function<T, String> texto) {
+        this.texto = texto;
+        for (T elemento : elementos) {
+            aniadir(elemento);
+        }
+    }
+
+    /**
+     * Añade un elemento al índice en un hueco nuevo. Si ya estaba, no hace nada.
+     */
+    public void aniadir(T elemento) {
+        if (huecos.containsKey(elemento)) {
+            return;
+        }
+        int hueco = textos.size();
+        String normalizado = normalizar(texto.apply(elemento));
+        textos.add(normalizado);
+        huecos.put(elemento, hueco);
+        for (int i = 0; i + 3 <= normalizado.length(); i++) {
+            trigramas.computeIfAbsent(trigrama(normalizado, i), t -> new Huecos()).aniadir(hueco);
+        }
+        olvidarUltimaConsulta();
+    }
+
+    /**
+     * Quita un elemento del índice. Su hueco queda vacío y no se reutiliza.
+     */
+    public void quitar(T elemento) {
+        Integer hueco = huecos.remove(elemento);
+        if (hueco != null) {
+            textos.set(hueco, null);
+            olvidarUltimaConsulta();
+        }
+    }
+
+    /**
+     * Devuelve un filtro con los elementos cuyo texto contiene la consulta, sin distinguir mayúsculas,
+     * listo para {@code FilteredList.setPredicate}. Sigue siendo válido para los elementos que se añadan después,
+     * así que una FilteredList con este filtro no necesita volver a filtrarse al añadirle una fila.
+     *
+     * @param consulta Texto buscado.
+     * @return El filtro, o null si la consulta está vacía (se muestran todos).
+     */
+    public Predicate<T> filtro(String consulta) {
+        BitSet resultado = buscar(consulta);
+        if (resultado == null) {
+            return null;
+        }
+        // los elementos añadidos después de la búsqueda no están en el resultado: se comprueban directamente
+        int consultados = textos.size();
+        String q = ultimaConsulta;
+        return elemento -> {
+            Integer hueco = huecos.get(elemento);
+            if (hueco == null) {
+                return false;
+            }
+            return hueco < consultados ? resultado.get(hueco) : textos.get(hueco).contains(q);
+        };
+    }
+
+    /**
+     * Busca los huecos cuyo texto contiene la consulta.
+     *
+     * @param consulta Texto buscado.
+     * @return Los huecos encontrados, o null si la consulta está vacía.
+     */
+    public BitSet buscar(String consulta) {
+        String q = normalizar(consulta);
+        if (q.isEmpty()) {
+            olvidarUltimaConsulta();
+            return null;
+        }
+        BitSet candidatos;
+        if (ultimaConsulta != null && q.contains(ultimaConsulta)) {
+            candidatos = ultimoResultado;
+        } else if (q.length() >= 3) {
+            candidatos = candidatosPorTrigramas(q);
+        } else {
+            candidatos = new BitSet(textos.size());
+            candidatos.set(0, textos.size());
+        }
+        BitSet resultado = new BitSet(textos.size());
+        for (int hueco = candidatos.nextSetBit(0); hueco >= 0; hueco = candidatos.nextSetBit(hueco + 1)) {
+            String t = textos.get(hueco);
+            if (t != null && t.contains(q)) {
+                resultado.set(hueco);
+            }
+        }
+        ultimaConsulta = q;
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    /**
+     * @return Número de elementos en el índice.
+     */
+    public int size() {
+        return huecos.size();
+    }
+
+    /**
+     * Cruza las listas de huecos de los trigramas de la consulta, empezando por la más corta.
+     */
+    private BitSet candidatosPorTrigramas(String q) {
+        List<Huecos> listas = new ArrayList<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            Huecos lista = trigramas.get(trigrama(q, i));
+            if (lista == null) {
+                return new BitSet();
+            }
+            listas.add(lista);
+        }
+        listas.sort((a, b) -> Integer.compare(a.tamanio, b.tamanio));
+        int[] actual = Arrays.copyOf(listas.get(0).huecos, listas.get(0).tamanio);
+        int n = actual.length;
+        for (int l = 1; l < listas.size() && n > 0; l++) {
+            n = interseccion(actual, n, listas.get(l));
+        }
+        BitSet candidatos = new BitSet(textos.size());
+        for (int i = 0; i < n; i++) {
+            candidatos.set(actual[i]);
+        }
+        return candidatos;
+    }
+
+    /**
+     * Deja en las primeras posiciones de {@code actual} los huecos que también están en {@code otra}.
+     * Ambas listas están ordenadas porque los huecos se asignan en orden creciente.
+     *
+     * @return Cuántos huecos quedan.
+     */
+    private static int interseccion(int[] actual, int n, Huecos otra) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < n && j < otra.tamanio) {
+            if (actual[i] < otra.huecos[j]) {
+                i++;
+            } else if (actual[i] > otra.huecos[j]) {
+                j++;
+            } else {
+                actual[k++] = actual[i];
+                i++;
+                j++;
+            }
+        }
+        return k;
+    }
+
+    private void olvidarUltimaConsulta() {
+        ultimaConsulta = null;
+        ultimoResultado = null;
+    }
+
+    private static String normalizar(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigrama(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Lista creciente de huecos de un trigrama. Un hueco aparece una vez aunque el trigrama se repita en el texto.
+     */
+    private static final class Huecos {
+        int[] huecos = new int[4];
+        int tamanio;
+
+        void aniadir(int hueco) {
+            if (tamanio > 0 && huecos[tamanio - 1] == hueco) {
+                return;
+            }
+            if (tamanio == huecos.length) {
+                huecos = Arrays.copyOf(huecos, tamanio * 2);
+            }
+            huecos[tamanio++] = hueco;
+        }
+    }
+}
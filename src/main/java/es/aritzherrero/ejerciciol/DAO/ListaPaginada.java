@@ -0,0 +1,285 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import javafx.collections.ObservableListBase;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lista observable que carga sus elementos por páginas a medida que se piden, pensada para respaldar un TableView
+ * con muchas filas. El TableView solo pide las filas visibles, así que solo se leen las páginas que se ven.
+ * <ul>
+ *     <li>El tamaño se obtiene con un COUNT al crear la lista; hasta que llega, la lista está vacía.</li>
+ *     <li>Las páginas se leen en segundo plano por clave ("después del ID x, n filas"). Al desplazarse, el ID inicial
+ *     de cada página se conoce por la anterior; solo al saltar a una página lejana (arrastrando la barra) hay que
+ *     buscarlo con OFFSET, y se cuenta desde la página conocida más cercana por debajo, no desde el principio.
+ *     Mientras no han llegado, sus posiciones devuelven null.</li>
+ *     <li>Se guardan como mucho {@code maxPaginas} páginas; al superarlas se descartan las más alejadas de la última
+ *     página vista, y las lecturas pendientes de páginas alejadas se cancelan.</li>
+ * </ul>
+ * Se usa desde el hilo de JavaFX, igual que la tabla a la que respalda.
+ */
+public class ListaPaginada<T> extends ObservableListBase<T> {
+    private final Fuente<T> fuente;
+    private final int tamanioPagina;
+    private final int maxPaginas;
+    private final Map<Integer, List<T>> paginas = new HashMap<>();
+    private final Map<Integer, CompletableFuture<List<T>>> pendientes = new HashMap<>();
+    // ID tras el que empieza cada página, conocido al haber leído la anterior; evita buscarlo de nuevo
+    private final Map<Integer, Integer> inicios = new HashMap<>();
+    private final CompletableFuture<Integer> conteo;
+    private int tamanio;
+    private int paginaActual;
+    private boolean cerrada;
+
+    /**
+     * Crea la lista y lanza el recuento de elementos.
+     *
+     * @param fuente        Consultas de la tabla que se pagina.
+     * @param tamanioPagina Filas por página.
+     * @param maxPaginas    Páginas que se mantienen en memoria como mucho.
+     */
+    public ListaPaginada(Fuente<T> fuente, int tamanioPagina, int maxPaginas) {
+        if (tamanioPagina <= 0 || maxPaginas <= 0) {
+            throw new IllegalArgumentException("El tamaño de página y el máximo de páginas deben ser positivos");
+        }
+        this.fuente = fuente;
+        this.tamanioPagina = tamanioPagina;
+        this.maxPaginas = maxPaginas;
+        inicios.put(0, 0);
+        conteo = EjecutorDAO.ejecutar(fuente::contar, n -> {
+            if (!cerrada && n > 0) {
+                beginChange();
+                tamanio = n;
+                nextAdd(0, n);
+                endChange();
+            }
+        }, error -> System.err.println(error.getMessage()));
+    }
+
+    /**
+     * Devuelve el elemento de la posición indicada, o null si su página todavía no se ha leído. En ese caso se pide
+     * la página y la lista avisa del cambio cuando llega.
+     */
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, tamanio);
+        int pagina = index / tamanioPagina;
+        paginaActual = pagina;
+        List<T> elementos = paginas.get(pagina);
+        if (elementos == null) {
+            pedir(pagina);
+            return null;
+        }
+        int posicion = index % tamanioPagina;
+        // la página puede venir más corta si se han borrado filas desde el recuento
+        return posicion < elementos.size() ? elementos.get(posicion) : null;
+    }
+
+    @Override
+    public int size() {
+        return tamanio;
+    }
+
+    /**
+     * @return Número de páginas que hay ahora en memoria.
+     */
+    public int getPaginasCargadas() {
+        return paginas.size();
+    }
+
+    /**
+     * Sustituye el elemento con el ID indicado si está en una página cargada, avisando solo del cambio de esa fila.
+     * Si no está cargado no hace nada: se leerá ya cambiado cuando se pida su página.
+     *
+     * @param id     ID del elemento.
+     * @param cambio Recibe el elemento actual y devuelve el que lo sustituye.
+     * @return true si estaba cargado y se ha sustituido.
+     */
+    public boolean reemplazar(int id, UnaryOperator<T> cambio) {
+        for (Map.Entry<Integer, List<T>> pagina : paginas.entrySet()) {
+            List<T> elementos = pagina.getValue();
+            for (int i = 0; i < elementos.size(); i++) {
+                T anterior = elementos.get(i);
+                if (fuente.getId(anterior) == id) {
+                    elementos.set(i, cambio.apply(anterior));
+                    int posicion = pagina.getKey() * tamanioPagina + i;
+                    if (posicion < tamanio) {
+                        beginChange();
+                        nextSet(posicion, anterior);
+                        endChange();
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vuelve a contar las filas y descarta las páginas cargadas, por ejemplo tras insertar o borrar una fila, que
+     * desplaza a todas las siguientes. La lista sigue siendo la misma, así que la tabla conserva el desplazamiento
+     * y vuelve a leer solo las páginas visibles.
+     */
+    public void refrescar() {
+        if (cerrada) {
+            return;
+        }
+        EjecutorDAO.ejecutar(fuente::contar, n -> {
+            if (cerrada) {
+                return;
+            }
+            for (CompletableFuture<List<T>> pendiente : pendientes.values()) {
+                pendiente.cancel(true);
+            }
+            pendientes.clear();
+            paginas.clear();
+            inicios.clear();
+            inicios.put(0, 0);
+            int anterior = tamanio;
+            tamanio = n;
+            beginChange();
+            if (Math.min(anterior, n) > 0) {
+                nextReplace(0, Math.min(anterior, n), Collections.nCopies(Math.min(anterior, n), null));
+            }
+            if (n > anterior) {
+                nextAdd(anterior, n);
+            } else if (n < anterior) {
+                nextRemove(n, Collections.nCopies(anterior - n, null));
+            }
+            endChange();
+        }, error -> System.err.println(error.getMessage()));
+    }
+
+    /**
+     * Cancela las lecturas pendientes. Se llama al dejar de mostrar la lista; después ya no cambia.
+     */
+    public void cerrar() {
+        cerrada = true;
+        conteo.cancel(true);
+        for (CompletableFuture<List<T>> pendiente : pendientes.values()) {
+            pendiente.cancel(true);
+        }
+        pendientes.clear();
+    }
+
+    private void pedir(int pagina) {
+        if (cerrada || pendientes.containsKey(pagina)) {
+            return;
+        }
+        cancelarAlejadas();
+        // página más cercana por debajo cuyo ID inicial se conoce; la 0 siempre está
+        int base = 0;
+        for (int conocida : inicios.keySet()) {
+            if (conocida <= pagina && conocida > base) {
+                base = conocida;
+            }
+        }
+        int desdeId = inicios.get(base);
+        int saltar = (pagina - base) * tamanioPagina - 1;
+        pendientes.put(pagina, EjecutorDAO.ejecutar(() -> {
+            int despuesDeId = saltar < 0 ? desdeId : fuente.getIdDespuesDe(desdeId, saltar);
+            if (despuesDeId == -1) {
+                return Collections.emptyList();
+            }
+            return fuente.cargarPagina(despuesDeId, tamanioPagina);
+        }, elementos -> colocar(pagina, elementos), error -> {
+            pendientes.remove(pagina);
+            System.err.println(error.getMessage());
+        }));
+    }
+
+    private void colocar(int pagina, List<T> elementos) {
+        pendientes.remove(pagina);
+        if (cerrada) {
+            return;
+        }
+        paginas.put(pagina, elementos);
+        if (!elementos.isEmpty()) {
+            inicios.put(pagina + 1, fuente.getId(elementos.get(elementos.size() - 1)));
+        }
+        int desde = pagina * tamanioPagina;
+        int hasta = Math.min(desde + tamanioPagina, tamanio);
+        if (desde < hasta) {
+            beginChange();
+            nextReplace(desde, hasta, Collections.nCopies(hasta - desde, null));
+            endChange();
+        }
+        expulsar();
+    }
+
+    /**
+     * Descarta las páginas más alejadas de la página actual hasta quedarse en el máximo.
+     */
+    private void expulsar() {
+        while (paginas.size() > maxPaginas) {
+            int lejana = -1;
+            for (int pagina : paginas.keySet()) {
+                if (lejana == -1 || Math.abs(pagina - paginaActual) > Math.abs(lejana - paginaActual)) {
+                    lejana = pagina;
+                }
+            }
+            List<T> elementos = paginas.remove(lejana);
+            int desde = lejana * tamanioPagina;
+            int hasta = Math.min(desde + elementos.size(), tamanio);
+            if (desde < hasta) {
+                beginChange();
+                nextReplace(desde, hasta, elementos.subList(0, hasta - desde));
+                endChange();
+            }
+        }
+    }
+
+    /**
+     * Cancela las lecturas de páginas que ya no se verían aunque llegasen, por ejemplo al arrastrar la barra
+     * de desplazamiento.
+     */
+    private void cancelarAlejadas() {
+        Iterator<Map.Entry<Integer, CompletableFuture<List<T>>>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<List<T>>> pendiente = it.next();
+            if (Math.abs(pendiente.getKey() - paginaActual) > maxPaginas / 2) {
+                pendiente.getValue().cancel(true);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Consultas sobre la tabla que se pagina. Las filas se ordenan por ID.
+     */
+    public interface Fuente<T> {
+        /**
+         * @return Número total de filas.
+         */
+        int contar() throws SQLException;
+
+        /**
+         * @param despuesDeId Se devuelven las filas con ID mayor que este.
+         * @param limite      Número máximo de filas.
+         * @return Las filas, ordenadas por ID.
+         */
+        List<T> cargarPagina(int despuesDeId, int limite) throws SQLException;
+
+        /**
+         * Se usa solo al saltar a una página cuyo ID inicial no se conoce.
+         *
+         * @param despuesDeId Se cuenta desde la primera fila con ID mayor que este.
+         * @param saltar      Filas que se saltan desde ella.
+         * @return El ID de la fila a la que se llega, o -1 si no hay tantas filas.
+         */
+        int getIdDespuesDe(int despuesDeId, int saltar) throws SQLException;
+
+        /**
+         * @return El ID de un elemento, que se usa como clave de la página siguiente.
+         */
+        int getId(T elemento);
+    }
+}
@@ -0,0 +1,152 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mapa de identidad (caché de primer nivel) de una unidad de trabajo.
+ * Mientras está abierto, cada fila de aeropuertos, direcciones y aviones se materializa como un único objeto Java:
+ * los DAO buscan aquí antes de construir el objeto o de lanzar la consulta por ID.
+ * El mapa está ligado al hilo que lo abre y se puede abrir de forma anidada; solo se descarta al cerrar el más externo.
+ *
+ * <pre>
+ * try (MapaIdentidad sesion = MapaIdentidad.abrir()) {
+ *     ...llamadas a los DAO...
+ * }
+ * </pre>
+ */
+public class MapaIdentidad implements AutoCloseable {
+    public static final String DIRECCIONES = "direcciones";
+    public static final String AEROPUERTOS = "aeropuertos";
+    public static final String AVIONES = "aviones";
+
+    private static final ThreadLocal<MapaIdentidad> ACTUAL = new ThreadLocal<>();
+    private static final LongAdder ACIERTOS_TOTALES = new LongAdder();
+    private static final LongAdder FALLOS_TOTALES = new LongAdder();
+
+    private final Map<String, Map<Integer, Object>> tablas = new HashMap<>();
+    private int profundidad;
+    private long aciertos;
+    private long fallos;
+
+    private MapaIdentidad() {}
+
+    /**
+     * Abre un mapa de identidad en el hilo actual, o reutiliza el que ya esté abierto.
+     *
+     * @return El mapa activo. Hay que cerrarlo, preferiblemente con try-with-resources.
+     */
+    public static MapaIdentidad abrir() {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa == null) {
+            mapa = new MapaIdentidad();
+            ACTUAL.set(mapa);
+        }
+        mapa.profundidad++;
+        return mapa;
+    }
+
+    /**
+     * @return El mapa abierto en el hilo actual, o null si no hay ninguno.
+     */
+    public static MapaIdentidad actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Busca un objeto en el mapa abierto en el hilo actual.
+     *
+     * @param tabla Tabla de la que procede la fila.
+     * @param id    ID de la fila.
+     * @param tipo  Clase del objeto.
+     * @return El objeto ya materializado, o null si no está o no hay mapa abierto.
+     */
+    static <T> T buscarEnActual(String tabla, int id, Class<T> tipo) {
+        MapaIdentidad mapa = ACTUAL.get();
+        return mapa == null ? null : mapa.buscar(tabla, id, tipo);
+    }
+
+    /**
+     * Registra un objeto en el mapa abierto en el hilo actual.
+     *
+     * @param tabla  Tabla de la que procede la fila.
+     * @param id     ID de la fila.
+     * @param objeto Objeto recién construido.
+     * @return El objeto que queda asociado a la fila: el ya registrado si lo había, o el recibido.
+     */
+    static <T> T registrarEnActual(String tabla, int id, T objeto) {
+        MapaIdentidad mapa = ACTUAL.get();
+        return mapa == null || objeto == null ? objeto : mapa.registrar(tabla, id, objeto);
+    }
+
+    /**
+     * Busca un objeto ya materializado.
+     *
+     * @param tabla Tabla de la que procede la fila.
+     * @param id    ID de la fila.
+     * @param tipo  Clase del objeto.
+     * @return El objeto, o null si todavía no se ha cargado en esta unidad de trabajo.
+     */
+    public <T> T buscar(String tabla, int id, Class<T> tipo) {
+        Map<Integer, Object> filas = tablas.get(tabla);
+        Object objeto = filas == null ? null : filas.get(id);
+        if (tipo.isInstance(objeto)) {
+            aciertos++;
+            ACIERTOS_TOTALES.increment();
+            return tipo.cast(objeto);
+        }
+        fallos++;
+        FALLOS_TOTALES.increment();
+        return null;
+    }
+
+    /**
+     * Registra un objeto recién construido si la fila no tenía ya uno.
+     *
+     * @param tabla  Tabla de la que procede la fila.
+     * @param id     ID de la fila.
+     * @param objeto Objeto construido.
+     * @return El objeto asociado a la fila.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T registrar(String tabla, int id, T objeto) {
+        Object previo = tablas.computeIfAbsent(tabla, t -> new HashMap<>()).putIfAbsent(id, objeto);
+        return previo == null ? objeto : (T) previo;
+    }
+
+    /**
+     * @return Búsquedas resueltas con un objeto ya materializado, es decir, consultas o construcciones ahorradas.
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * @return Aciertos de todos los mapas de identidad desde que arrancó la aplicación.
+     */
+    public static long getAciertosTotales() {
+        return ACIERTOS_TOTALES.sum();
+    }
+
+
+    public static long getFallosTotales() {
+        return FALLOS_TOTALES.sum();
+    }
+
+    /**
+     * Cierra este nivel del mapa. Al cerrar el nivel más externo se descartan los objetos.
+     */
+    @Override
+    public void close() {
+        if (--profundidad == 0) {
+            ACTUAL.remove();
+            tablas.clear();
+        }
+    }
+}
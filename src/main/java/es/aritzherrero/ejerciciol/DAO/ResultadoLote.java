@@ -0,0 +1,41 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+/**
+ * Resultado de una inserción por lotes: las claves generadas, en el mismo orden que los elementos insertados,
+ * y el rendimiento conseguido.
+ */
+public class ResultadoLote {
+    private final int[] ids;
+    private final long nanos;
+
+
+    public ResultadoLote(int[] ids, long nanos) {
+        this.ids = ids;
+        this.nanos = nanos;
+    }
+
+
+    public int[] getIds() {
+        return ids;
+    }
+
+
+    public int getFilas() {
+        return ids.length;
+    }
+
+
+    public double getSegundos() {
+        return nanos / 1_000_000_000.0;
+    }
+
+
+    public double getFilasPorSegundo() {
+        return nanos == 0 ? 0 : ids.length / getSegundos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d filas en %.3f s (%.0f filas/s)", getFilas(), getSegundos(), getFilasPorSegundo());
+    }
+}
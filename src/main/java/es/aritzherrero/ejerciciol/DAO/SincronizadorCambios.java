@@ -0,0 +1,307 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.Aeropuerto;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPrivado;
+import es.aritzherrero.ejerciciol.Modelo.AeropuertoPublico;
+import es.aritzherrero.ejerciciol.Modelo.Avion;
+import es.aritzherrero.ejerciciol.db.ConexionDB;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trae a este cliente los cambios que guardan otros clientes en la misma base de datos.
+ * Los disparadores de {@code sql/registro_cambios.sql} apuntan cada alta, modificación o baja en la tabla
+ * registro_cambios con un número de versión creciente. Cada pocos segundos se leen solo las entradas posteriores a la
+ * última vista, se releen por clave primaria las filas afectadas y se publican en {@link BusCambios}, igual que si las
+ * hubiese guardado este cliente. El coste de cada comprobación depende de lo que ha cambiado, no del tamaño de las
+ * tablas.
+ * <ul>
+ *     <li>Varios cambios de la misma fila en una comprobación se publican una sola vez, con su estado final.</li>
+ *     <li>Las versiones se numeran al insertar, no al hacer commit, así que una transacción larga puede hacer visible
+ *     una versión menor que otras ya leídas. Un hueco en la numeración se sigue consultando durante
+ *     {@link #ESPERA_HUECO_MS} antes de darlo por perdido (una transacción deshecha).</li>
+ *     <li>Los cambios de este mismo cliente también llegan; volver a aplicarlos deja las listas igual, y las
+ *     estadísticas de flota se comparan antes de corregirlas en lugar de descartarlas.</li>
+ * </ul>
+ */
+public class SincronizadorCambios {
+    private static final long INTERVALO_MS = Long.getLong("ejerciciol.sincronizacion.intervaloMs", 2000L);
+    private static final int LOTE = Integer.getInteger("ejerciciol.sincronizacion.lote", 500);
+    private static final long ESPERA_HUECO_MS = Long.getLong("ejerciciol.sincronizacion.esperaHuecoMs", 10_000L);
+
+    private static ScheduledExecutorService planificador;
+    // todas las versiones hasta esta se han aplicado o descartado; -1 hasta la primera comprobación
+    private static long confirmada = -1;
+    // versiones aplicadas por encima de confirmada, que quedan detrás de un hueco
+    private static final TreeSet<Long> aplicadas = new TreeSet<>();
+    // desde cuándo confirmada no puede avanzar por un hueco, o -1
+    private static long atascadaDesde = -1;
+
+    /**
+     * Empieza a comprobar los cambios periódicamente en segundo plano. La primera comprobación solo toma la última
+     * versión existente: lo anterior ya está en los listados que se lean después.
+     */
+    public static synchronized void iniciar() {
+        if (planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("sincronizador-cambios").factory());
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                comprobar();
+            } catch (RuntimeException e) {
+                // una excepción cancelaría las siguientes comprobaciones
+                System.err.println(e.getMessage());
+            }
+        }, 0, INTERVALO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deja de comprobar los cambios. Se llama al cerrar la aplicación.
+     */
+    public static synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+    }
+
+    /**
+     * Lee y publica los cambios nuevos. Se llama periódicamente tras {@link #iniciar()}; también se puede llamar
+     * directamente para no esperar a la siguiente comprobación.
+     *
+     * @return Número de filas cambiadas publicadas, o -1 si no se ha podido consultar.
+     */
+    public static synchronized int comprobar() {
+        try {
+            if (confirmada < 0) {
+                confirmada = leerUltimaVersion();
+                return 0;
+            }
+            int publicadas = 0;
+            long desde = confirmada;
+            List<Cambio> cambios;
+            do {
+                cambios = leerCambios(desde);
+                publicadas += publicar(cambios);
+                if (!cambios.isEmpty()) {
+                    desde = cambios.get(cambios.size() - 1).version;
+                }
+            } while (cambios.size() == LOTE);
+            avanzar();
+            return publicadas;
+        } catch (SQLException e) {
+            System.err.println("No se pudieron leer los cambios de otros clientes: " + e.getMessage());
+            if (confirmada < 0) {
+                // sin la tabla registro_cambios no hay nada que comprobar
+                detener();
+            }
+            return -1;
+        }
+    }
+
+    private static long leerUltimaVersion() throws SQLException {
+        ConexionDB connection = new ConexionDB();
+        try {
+            String consulta = "SELECT COALESCE(MAX(version), 0) FROM registro_cambios";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } finally {
+            connection.CloseConexion();
+        }
+    }
+
+    private static List<Cambio> leerCambios(long desde) throws SQLException {
+        List<Cambio> cambios = new ArrayList<>();
+        ConexionDB connection = new ConexionDB();
+        try {
+            String consulta = "SELECT version, tabla, id, operacion, id_aeropuerto FROM registro_cambios " +
+                    "WHERE version > ? ORDER BY version LIMIT ?";
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
+            pstmt.setLong(1, desde);
+            pstmt.setInt(2, LOTE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    cambios.add(new Cambio(rs.getLong("version"), rs.getString("tabla"), rs.getInt("id"),
+                            rs.getString("operacion").charAt(0), rs.getInt("id_aeropuerto")));
+                }
+            }
+        } finally {
+            connection.CloseConexion();
+        }
+        return cambios;
+    }
+
+    /**
+     * Relee las filas cambiadas que no se habían aplicado y publica su estado actual. Las versiones se marcan como
+     * aplicadas solo después, así que si falla una lectura se vuelven a intentar en la siguiente comprobación.
+     *
+     * @return Número de filas publicadas.
+     */
+    private static int publicar(List<Cambio> cambios) throws SQLException {
+        // ID → si alguno de sus cambios es un alta
+        Map<Integer, Boolean> aeropuertos = new LinkedHashMap<>();
+        Map<Integer, Boolean> aviones = new LinkedHashMap<>();
+        Set<Integer> flotas = new HashSet<>();
+        Set<Integer> borrados = new HashSet<>();
+        for (Cambio cambio : cambios) {
+            if (cambio.version <= confirmada || aplicadas.contains(cambio.version)) {
+                continue;
+            }
+            switch (cambio.tabla) {
+                case "aviones" -> {
+                    aviones.merge(cambio.id, cambio.operacion == 'I', Boolean::logicalOr);
+                    flotas.add(cambio.idAeropuerto);
+                }
+                case "aeropuertos" -> {
+                    aeropuertos.merge(cambio.id, false, Boolean::logicalOr);
+                    if (cambio.operacion == 'D') {
+                        borrados.add(cambio.id);
+                    }
+                }
+                // el alta de un aeropuerto se completa al insertar su tipo
+                case "aeropuertos_publicos", "aeropuertos_privados" ->
+                        aeropuertos.merge(cambio.id, cambio.operacion == 'I', Boolean::logicalOr);
+                default -> { }
+            }
+        }
+
+        if (!aeropuertos.isEmpty()) {
+            Map<Integer, Object> filas = AeropuertoDAO.cargarTipadosPorIds(aeropuertos.keySet());
+            if (filas == null) {
+                throw new SQLException("No se pudieron leer los aeropuertos cambiados");
+            }
+            CatalogoAeropuertos.invalidar();
+            for (Map.Entry<Integer, Boolean> aeropuerto : aeropuertos.entrySet()) {
+                CacheImagenes.olvidar(aeropuerto.getKey());
+                publicarAeropuerto(aeropuerto.getKey(), filas.get(aeropuerto.getKey()), aeropuerto.getValue());
+            }
+        }
+        if (!aviones.isEmpty()) {
+            Map<Integer, Avion> filas = AvionDAO.cargarPorIds(aviones.keySet());
+            if (filas == null) {
+                throw new SQLException("No se pudieron leer los aviones cambiados");
+            }
+            for (Map.Entry<Integer, Boolean> cambio : aviones.entrySet()) {
+                int id = cambio.getKey();
+                Avion avion = filas.get(id);
+                if (avion == null) {
+                    BusCambios.publicar(EventoCambio.eliminado(Avion.class, id));
+                } else if (cambio.getValue()) {
+                    BusCambios.publicar(EventoCambio.creado(Avion.class, id, avion));
+                } else {
+                    BusCambios.publicar(EventoCambio.modificado(Avion.class, id, avion));
+                }
+            }
+        }
+        // los modelos de estas flotas se vuelven a leer cuando se pidan; las estadísticas se comparan con la base de
+        // datos y solo se corrigen si no cuadran, así que las escrituras de este cliente no las tiran
+        for (int idAeropuerto : flotas) {
+            IndiceModelos.olvidar(idAeropuerto);
+        }
+        for (int idAeropuerto : borrados) {
+            IndiceModelos.olvidar(idAeropuerto);
+            EstadisticasFlota.olvidar(idAeropuerto);
+        }
+        flotas.removeAll(borrados);
+        if (EstadisticasFlota.verificar(flotas) < 0) {
+            throw new SQLException("No se pudieron comprobar las estadísticas de flota");
+        }
+
+        for (Cambio cambio : cambios) {
+            if (cambio.version > confirmada) {
+                aplicadas.add(cambio.version);
+            }
+        }
+        return aeropuertos.size() + aviones.size();
+    }
+
+    /**
+     * Publica el estado actual de un aeropuerto. Un alta lleva la fila completa; una modificación se publica como
+     * cambio de los datos comunes y de los del tipo, que es como la aplican las pantallas.
+     *
+     * @param id   ID del aeropuerto.
+     * @param fila AeropuertoPublico o AeropuertoPrivado actual, o null si ya no existe o no tiene tipo.
+     * @param alta Si se ha insertado su tipo.
+     */
+    private static void publicarAeropuerto(int id, Object fila, boolean alta) {
+        if (fila == null) {
+            BusCambios.publicar(EventoCambio.eliminado(Aeropuerto.class, id));
+        } else if (fila instanceof AeropuertoPublico) {
+            AeropuertoPublico publico = (AeropuertoPublico) fila;
+            if (!alta) {
+                BusCambios.publicar(EventoCambio.modificado(Aeropuerto.class, id, publico.getAeropuerto()));
+            }
+            BusCambios.publicar(alta
+                    ? EventoCambio.creado(AeropuertoPublico.class, id, publico)
+                    : EventoCambio.modificado(AeropuertoPublico.class, id, publico));
+        } else {
+            AeropuertoPrivado privado = (AeropuertoPrivado) fila;
+            if (!alta) {
+                BusCambios.publicar(EventoCambio.modificado(Aeropuerto.class, id, privado.getAeropuerto()));
+            }
+            BusCambios.publicar(alta
+                    ? EventoCambio.creado(AeropuertoPrivado.class, id, privado)
+                    : EventoCambio.modificado(AeropuertoPrivado.class, id, privado));
+        }
+    }
+
+    /**
+     * Avanza la versión confirmada sobre las versiones aplicadas consecutivas. Si hay un hueco que no se llena en
+     * {@link #ESPERA_HUECO_MS}, se salta.
+     */
+    private static void avanzar() {
+        while (!aplicadas.isEmpty()) {
+            if (aplicadas.first() == confirmada + 1) {
+                confirmada = aplicadas.pollFirst();
+                atascadaDesde = -1;
+                continue;
+            }
+            long ahora = System.currentTimeMillis();
+            if (atascadaDesde < 0) {
+                atascadaDesde = ahora;
+            }
+            if (ahora - atascadaDesde < ESPERA_HUECO_MS) {
+                return;
+            }
+            // las versiones que faltan no han aparecido: eran de transacciones deshechas
+            confirmada = aplicadas.first() - 1;
+            atascadaDesde = -1;
+        }
+    }
+
+    /**
+     * Una entrada de registro_cambios.
+     */
+    private static final class Cambio {
+        final long version;
+        final String tabla;
+        final int id;
+        final char operacion;
+        final int idAeropuerto;
+
+        Cambio(long version, String tabla, int id, char operacion, int idAeropuerto) {
+            this.version = version;
+            this.tabla = tabla;
+            this.id = id;
+            this.operacion = operacion;
+            this.idAeropuerto = idAeropuerto;
+        }
+    }
+}
@@ -10,23 +10,30 @@ import java.sql.SQLException;
 public class UsuarioDAO {
 
     public static Usuario getUsuario(String usuario) {
-        ConexionDB connection;
+        ConexionDB connection = null;
         Usuario user = null;
         try {
             connection = new ConexionDB();
             String consulta = "SELECT usuario,password FROM usuarios WHERE usuario = ?";
-            PreparedStatement pstmt = connection.getConexion().prepareStatement(consulta);
+            PreparedStatement pstmt = connection.prepareStatement(consulta);
             pstmt.setString(1, usuario);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String nom_usuario = rs.getString("usuario");
-                String password = rs.getString("contraseña");
-                user = new Usuario(nom_usuario, password);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String nom_usuario = rs.getString("usuario");
+                    String password = rs.getString("contraseña");
+                    user = new Usuario(nom_usuario, password);
+                }
             }
-            rs.close();
-            connection.CloseConexion();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+        } finally {
+            try {
+                if (connection != null) {
+                    connection.CloseConexion();
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
         }
         return user;
     }
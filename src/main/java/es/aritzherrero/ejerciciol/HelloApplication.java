@@ -1,6 +1,11 @@
 package es.aritzherrero.ejerciciol;
 
 
+import es.aritzherrero.ejerciciol.DAO.EjecutorDAO;
+import es.aritzherrero.ejerciciol.DAO.SincronizadorCambios;
+import es.aritzherrero.ejerciciol.db.ConexionDB;
+import es.aritzherrero.ejerciciol.db.MetricasDAO;
+import es.aritzherrero.ejerciciol.db.RegistroConsultasLentas;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -18,6 +23,16 @@ public class HelloApplication extends Application {
         stage.setResizable(false);
         stage.setScene(scene);
         stage.show();
+        SincronizadorCambios.iniciar();
+        MetricasDAO.registrarJmx();
+    }
+
+    @Override
+    public void stop() {
+        SincronizadorCambios.detener();
+        EjecutorDAO.cerrar();
+        ConexionDB.cerrarPool();
+        RegistroConsultasLentas.cerrar();
     }
 
     public static void main(String[] args) throws Exception {
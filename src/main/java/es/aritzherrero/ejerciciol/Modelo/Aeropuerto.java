@@ -12,6 +12,7 @@ public class Aeropuerto {
     private int capacidad;
     private Direccion direccion;
     private Blob imagen;
+    private ImagenDiferida imagenDiferida;
 
 
     public Aeropuerto(int id, String nombre, int anio_inauguracion, int capacidad, Direccion direccion, Blob imagen) {
@@ -91,6 +92,22 @@ public class Aeropuerto {
         this.imagen = imagen;
     }
 
+
+    /**
+     * Imagen del aeropuerto que se lee de la base de datos al pedirla. Los aeropuertos de los listados
+     * no traen el BLOB en {@link #getImagen()}, solo esta referencia.
+     *
+     * @return La referencia a la imagen, o null si el aeropuerto no se ha leído de la base de datos.
+     */
+    public ImagenDiferida getImagenDiferida() {
+        return imagenDiferida;
+    }
+
+
+    public void setImagenDiferida(ImagenDiferida imagenDiferida) {
+        this.imagenDiferida = imagenDiferida;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
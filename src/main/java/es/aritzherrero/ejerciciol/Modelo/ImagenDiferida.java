@@ -0,0 +1,56 @@
+package es.aritzherrero.ejerciciol.Modelo;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Referencia a la imagen de un aeropuerto que no se lee hasta que se necesita.
+ * Los listados no traen la imagen; al pedirla se abre un flujo contra la base de datos que se lee por trozos,
+ * sin cargar la imagen entera en memoria.
+ */
+public class ImagenDiferida {
+    private final int idAeropuerto;
+    private final Fuente fuente;
+
+
+    public ImagenDiferida(int idAeropuerto, Fuente fuente) {
+        this.idAeropuerto = idAeropuerto;
+        this.fuente = fuente;
+    }
+
+
+    public int getIdAeropuerto() {
+        return idAeropuerto;
+    }
+
+
+    /**
+     * Lee la imagen pasando el flujo de bytes al lector. El flujo solo es válido durante la llamada.
+     *
+     * @param lector Función que consume el flujo, por ejemplo para decodificar la imagen.
+     * @return Lo que devuelva el lector, o null si el aeropuerto no tiene imagen.
+     * @throws IOException si falla la lectura.
+     */
+    public <T> T leer(Lector<T> lector) throws IOException {
+        return fuente.abrir(idAeropuerto, lector);
+    }
+
+
+    /**
+     * Origen de los bytes de la imagen.
+     */
+    @FunctionalInterface
+    public interface Fuente {
+        <T> T abrir(int idAeropuerto, Lector<T> lector) throws IOException;
+    }
+
+
+    /**
+     * Consumidor del flujo de bytes de la imagen.
+     */
+    @FunctionalInterface
+    public interface Lector<T> {
+        T leer(InputStream in) throws IOException;
+    }
+}
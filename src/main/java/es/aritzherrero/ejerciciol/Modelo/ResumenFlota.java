@@ -0,0 +1,62 @@
+package es.aritzherrero.ejerciciol.Modelo;
+
+
+/**
+ * Resumen de los aviones de un aeropuerto, calculado en la base de datos sin leer los aviones uno a uno.
+ */
+public class ResumenFlota {
+    private int idAeropuerto;
+    private int total;
+    private int activados;
+    private long asientos;
+    private int velocidadMaxima;
+
+
+    public ResumenFlota(int idAeropuerto, int total, int activados, long asientos, int velocidadMaxima) {
+        this.idAeropuerto = idAeropuerto;
+        this.total = total;
+        this.activados = activados;
+        this.asientos = asientos;
+        this.velocidadMaxima = velocidadMaxima;
+    }
+
+
+    public int getIdAeropuerto() {
+        return idAeropuerto;
+    }
+
+
+    public int getTotal() {
+        return total;
+    }
+
+
+    public int getActivados() {
+        return activados;
+    }
+
+
+    public int getDesactivados() {
+        return total - activados;
+    }
+
+
+    public long getAsientos() {
+        return asientos;
+    }
+
+
+    /**
+     * @return La mayor velocidad máxima de los aviones, o 0 si no hay ninguno.
+     */
+    public int getVelocidadMaxima() {
+        return velocidadMaxima;
+    }
+
+
+    @Override
+    public String toString() {
+        return total + " aviones (" + activados + " activados, " + getDesactivados() + " desactivados), " +
+                asientos + " asientos, velocidad máxima " + velocidadMaxima;
+    }
+}
@@ -0,0 +1,180 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de sentencias preparadas de una conexión del pool, indexada por el texto SQL.
+ * Las sentencias de la caché pertenecen a la conexión: los DAO no las cierran, las devuelve
+ * {@link ConexionDB#CloseConexion()} al terminar la llamada.
+ *
+ * @author Aritz
+ */
+public class CacheSentencias {
+    private static final LongAdder ACIERTOS_TOTALES = new LongAdder();
+    private static final LongAdder FALLOS_TOTALES = new LongAdder();
+    private static final LongAdder EXPULSIONES_TOTALES = new LongAdder();
+
+    private final Connection conexion;
+    private final int capacidad;
+    private final LinkedHashMap<String, Sentencia> sentencias;
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    /**
+     * Crea la caché de una conexión.
+     *
+     * @param conexion  Conexión física sobre la que se preparan las sentencias.
+     * @param capacidad Número máximo de sentencias que se mantienen preparadas.
+     */
+    public CacheSentencias(Connection conexion, int capacidad) {
+        this.conexion = conexion;
+        this.capacidad = capacidad;
+        this.sentencias = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Devuelve la sentencia preparada para el SQL indicado, preparándola si no estaba en la caché.
+     * Si la sentencia cacheada ya está en uso (consultas anidadas con el mismo SQL) se prepara una
+     * sentencia aparte que se cierra al liberarla.
+     *
+     * @param sql               Texto SQL.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}.
+     * @return La sentencia lista para asignar parámetros.
+     * @throws SQLException si no se puede preparar.
+     */
+    Sentencia obtener(String sql, int autoGeneratedKeys) throws SQLException {
+        String clave = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        Sentencia sentencia = sentencias.get(clave);
+        if (sentencia != null && !sentencia.enUso && !sentencia.pstmt.isClosed()) {
+            aciertos++;
+            ACIERTOS_TOTALES.increment();
+            sentencia.enUso = true;
+            return sentencia;
+        }
+        fallos++;
+        FALLOS_TOTALES.increment();
+        PreparedStatement pstmt = conexion.prepareStatement(sql, autoGeneratedKeys);
+        if (sentencia != null && sentencia.enUso) {
+            Sentencia temporal = new Sentencia(pstmt, false);
+            temporal.enUso = true;
+            return temporal;
+        }
+        if (sentencia != null) {
+            sentencias.remove(clave);
+        }
+        sentencia = new Sentencia(pstmt, true);
+        sentencia.enUso = true;
+        sentencias.put(clave, sentencia);
+        expulsarSobrantes();
+        return sentencia;
+    }
+
+    /**
+     * Devuelve una sentencia a la caché dejándola limpia para el siguiente uso.
+     *
+     * @param sentencia Sentencia obtenida con {@link #obtener(String, int)}.
+     */
+    void liberar(Sentencia sentencia) {
+        sentencia.enUso = false;
+        try {
+            if (!sentencia.cacheada) {
+                sentencia.pstmt.close();
+            } else if (!sentencia.pstmt.isClosed()) {
+                sentencia.pstmt.clearParameters();
+                sentencia.pstmt.clearBatch();
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            cerrarSilenciosamente(sentencia.pstmt);
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias. Se llama al destruir la conexión.
+     */
+    void cerrar() {
+        for (Sentencia sentencia : sentencias.values()) {
+            cerrarSilenciosamente(sentencia.pstmt);
+        }
+        sentencias.clear();
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+
+    public long getFallos() {
+        return fallos;
+    }
+
+
+    public long getExpulsiones() {
+        return expulsiones;
+    }
+
+
+    public int getTamanio() {
+        return sentencias.size();
+    }
+
+    /**
+     * @return Aciertos de todas las cachés de sentencias desde que arrancó la aplicación.
+     */
+    public static long getAciertosTotales() {
+        return ACIERTOS_TOTALES.sum();
+    }
+
+
+    public static long getFallosTotales() {
+        return FALLOS_TOTALES.sum();
+    }
+
+
+    public static long getExpulsionesTotales() {
+        return EXPULSIONES_TOTALES.sum();
+    }
+
+    private void expulsarSobrantes() {
+        Iterator<Map.Entry<String, Sentencia>> it = sentencias.entrySet().iterator();
+        while (sentencias.size() > capacidad && it.hasNext()) {
+            Sentencia candidata = it.next().getValue();
+            if (!candidata.enUso) {
+                it.remove();
+                cerrarSilenciosamente(candidata.pstmt);
+                expulsiones++;
+                EXPULSIONES_TOTALES.increment();
+            }
+        }
+    }
+
+    private static void cerrarSilenciosamente(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Sentencia preparada junto con su estado dentro de la caché.
+     */
+    static final class Sentencia {
+        final PreparedStatement pstmt;
+        final boolean cacheada;
+        boolean enUso;
+
+        Sentencia(PreparedStatement pstmt, boolean cacheada) {
+            this.pstmt = pstmt;
+            this.cacheada = cacheada;
+        }
+    }
+}
@@ -3,42 +3,113 @@ package es.aritzherrero.ejerciciol.db;
 
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 /**
- * Clase de conexión a la bbdd
+ * Clase de conexión a la bbdd.
+ * Cada objeto toma prestada una conexión del pool compartido y la devuelve al cerrarse.
+ * Las sentencias se preparan con {@link #prepareStatement(String)}, que las toma de la caché de la conexión;
+ * los DAO no deben cerrarlas, se liberan todas en {@link #CloseConexion()}.
+ * Con las {@link MetricasDAO} activas, cada objeto mide la llamada del DAO que lo crea; con el
+ * {@link RegistroConsultasLentas} activo, las sentencias que tardan más de la cuenta se apuntan en él. Los dos están
+ * desactivados por defecto, y entonces las sentencias se devuelven sin envolver.
  *
  * @author Aritz
  */
 public class ConexionDB {
+    private static final String URL = System.getProperty("ejerciciol.db.url",
+            "jdbc:mysql://localhost:33066/personas?serverTimezone=Europe/Madrid&useServerPrepStmts=true&rewriteBatchedStatements=true");
+    private static final int POOL_MIN = Integer.getInteger("ejerciciol.pool.min", 2);
+    private static final int POOL_MAX = Integer.getInteger("ejerciciol.pool.max", 10);
+    private static final long POOL_OCIOSO_MS = Long.getLong("ejerciciol.pool.ociosoMs", 60_000L);
+    private static final long POOL_ESPERA_MS = Long.getLong("ejerciciol.pool.esperaMs", 5_000L);
+    private static final int POOL_VALIDACION_S = Integer.getInteger("ejerciciol.pool.validacionS", 2);
+    private static final int SENTENCIAS_MAX = Integer.getInteger("ejerciciol.sentencias.max", 32);
+
+    private static PoolConexiones pool;
+
+    private final PoolConexiones origen;
+    private final PoolConexiones.Entrada entrada;
     private final Connection conexion;
+    // true si usa la conexión de una transacción abierta, que es quien la devuelve al pool
+    private final boolean compartida;
+    private final List<CacheSentencias.Sentencia> prestadas = new ArrayList<>();
+    // null si las métricas están desactivadas
+    private final MetricasDAO.Medida medida;
+    private boolean cerrada;
 
     /**
-     * Es el constructor que se llama al crear un objeto de esta clase, lanzado la conexión
+     * Es el constructor que se llama al crear un objeto de esta clase, tomando prestada una conexión del pool.
+     * Si hay una {@link Transaccion} abierta en el hilo actual, usa la conexión de la transacción.
      *
      * @throws java.sql.SQLException Hay que controlar errores de SQL
      */
     public ConexionDB() throws SQLException {
-        // los parametros de la conexion
-        Properties connConfig = new Properties();
-        connConfig.setProperty("user", "root");
-        connConfig.setProperty("password", "mypass");
-        //la conexion en sí
-        conexion = DriverManager.getConnection("jdbc:mysql://localhost:33066/personas?serverTimezone=Europe/Madrid", connConfig);
-        conexion.setAutoCommit(true);
-        DatabaseMetaData databaseMetaData = conexion.getMetaData();
-        //debug
-        System.out.println();
-        System.out.println("--- Datos de conexión ------------------------------------------");
-        System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
-        System.out.printf("  Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
-        System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
-        System.out.printf("  Versión: %s%n", databaseMetaData.getDriverVersion());
-        System.out.println("----------------------------------------------------------------");
-        System.out.println();
-        conexion.setAutoCommit(true);
+        medida = MetricasDAO.iniciar();
+        ConexionDB transaccion = Transaccion.conexionActual();
+        if (transaccion != null) {
+            origen = transaccion.origen;
+            entrada = transaccion.entrada;
+            compartida = true;
+        } else {
+            long inicioEspera = medida == null ? 0 : System.nanoTime();
+            try {
+                origen = getPool();
+                entrada = origen.prestar();
+            } catch (SQLException e) {
+                if (medida != null) {
+                    medida.errores++;
+                    medida.terminar();
+                }
+                throw e;
+            }
+            if (medida != null) {
+                medida.esperaNanos = System.nanoTime() - inicioEspera;
+            }
+            compartida = false;
+        }
+        conexion = entrada.conexion;
+    }
+
+    /**
+     * Devuelve el pool compartido, creándolo la primera vez que se usa.
+     *
+     * @return El pool de conexiones de la aplicación.
+     * @throws java.sql.SQLException Si no se pueden abrir las conexiones iniciales.
+     */
+    public static synchronized PoolConexiones getPool() throws SQLException {
+        if (pool == null) {
+            // los parametros de la conexion
+            Properties connConfig = new Properties();
+            connConfig.setProperty("user", System.getProperty("ejerciciol.db.user", "root"));
+            connConfig.setProperty("password", System.getProperty("ejerciciol.db.password", "mypass"));
+            pool = new PoolConexiones(URL, connConfig, POOL_MIN, POOL_MAX, POOL_OCIOSO_MS, POOL_ESPERA_MS, POOL_VALIDACION_S,
+                    SENTENCIAS_MAX);
+        }
+        return pool;
+    }
+
+    /**
+     * Devuelve las estadísticas del pool, o null si todavía no se ha creado.
+     *
+     * @return Las estadísticas de espera y uso del pool.
+     */
+    public static synchronized EstadisticasPool getEstadisticasPool() {
+        return pool == null ? null : pool.getEstadisticas();
+    }
+
+    /**
+     * Cierra el pool compartido. Se llama al salir de la aplicación.
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
     }
 
     /**
@@ -51,13 +122,75 @@ public class ConexionDB {
     }
 
     /**
-     * Metodo de cerrar la conexion con la base de datos
+     * Prepara una sentencia reutilizando la de la caché de la conexión si ya se preparó antes.
+     *
+     * @param sql Texto SQL de la sentencia.
+     * @return La sentencia preparada. No hay que cerrarla.
+     * @throws java.sql.SQLException Si no se puede preparar.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareStatement(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Prepara una sentencia reutilizando la de la caché de la conexión si ya se preparó antes.
+     *
+     * @param sql               Texto SQL de la sentencia.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} para poder leer las claves generadas.
+     * @return La sentencia preparada. No hay que cerrarla.
+     * @throws java.sql.SQLException Si no se puede preparar.
+     */
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        boolean lentas = RegistroConsultasLentas.isActivo();
+        if (medida == null && !lentas) {
+            CacheSentencias.Sentencia sentencia = entrada.sentencias.obtener(sql, autoGeneratedKeys);
+            prestadas.add(sentencia);
+            return sentencia.pstmt;
+        }
+        CacheSentencias.Sentencia sentencia;
+        try {
+            sentencia = entrada.sentencias.obtener(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            if (medida != null) {
+                medida.errores++;
+            }
+            throw e;
+        }
+        prestadas.add(sentencia);
+        return SentenciaInstrumentada.envolver(sentencia.pstmt, sql, medida, lentas);
+    }
+
+    /**
+     * Devuelve la caché de sentencias de la conexión prestada.
+     *
+     * @return La caché con sus contadores de aciertos y fallos.
+     */
+    public CacheSentencias getCacheSentencias() {
+        return entrada.sentencias;
+    }
+
+    /**
+     * Metodo de cerrar la conexion con la base de datos. La conexión física no se cierra, se devuelve al pool
+     * después de liberar las sentencias usadas. Dentro de una transacción solo se liberan las sentencias; la conexión
+     * la devuelve la transacción al terminar.
      *
-     * @return La conexión cerrada.
+     * @return La conexión devuelta.
      * @throws java.sql.SQLException Se lanza en caso de errores de SQL al cerrar la conexión.
      */
     public Connection CloseConexion() throws SQLException{
-        conexion.close();
+        if (!cerrada) {
+            cerrada = true;
+            for (CacheSentencias.Sentencia sentencia : prestadas) {
+                entrada.sentencias.liberar(sentencia);
+            }
+            prestadas.clear();
+            if (!compartida) {
+                origen.devolver(entrada);
+            }
+            if (medida != null) {
+                medida.terminar();
+            }
+        }
         return conexion;
     }
 }
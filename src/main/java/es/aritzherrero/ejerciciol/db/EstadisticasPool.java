@@ -0,0 +1,115 @@
+package es.aritzherrero.ejerciciol.db;
+
+/**
+ * Foto de las estadísticas de uso del pool de conexiones en un momento dado.
+ *
+ * @author Aritz
+ */
+public class EstadisticasPool {
+    private final int minimo;
+    private final int maximo;
+    private final int prestadas;
+    private final int ociosas;
+    private final int esperando;
+    private final long prestamos;
+    private final long esperaTotalNanos;
+    private final long esperaMaximaNanos;
+    private final long timeouts;
+    private final long creadas;
+    private final long destruidas;
+    private final long descartadasValidacion;
+
+
+    public EstadisticasPool(int minimo, int maximo, int prestadas, int ociosas, int esperando, long prestamos,
+                            long esperaTotalNanos, long esperaMaximaNanos, long timeouts, long creadas,
+                            long destruidas, long descartadasValidacion) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.prestadas = prestadas;
+        this.ociosas = ociosas;
+        this.esperando = esperando;
+        this.prestamos = prestamos;
+        this.esperaTotalNanos = esperaTotalNanos;
+        this.esperaMaximaNanos = esperaMaximaNanos;
+        this.timeouts = timeouts;
+        this.creadas = creadas;
+        this.destruidas = destruidas;
+        this.descartadasValidacion = descartadasValidacion;
+    }
+
+
+    public int getMinimo() {
+        return minimo;
+    }
+
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+
+    public int getPrestadas() {
+        return prestadas;
+    }
+
+
+    public int getOciosas() {
+        return ociosas;
+    }
+
+
+    public int getEsperando() {
+        return esperando;
+    }
+
+
+    public long getPrestamos() {
+        return prestamos;
+    }
+
+
+    public long getEsperaTotalNanos() {
+        return esperaTotalNanos;
+    }
+
+
+    /**
+     * @return La espera media para conseguir una conexión, en milisegundos.
+     */
+    public double getEsperaMediaMs() {
+        return prestamos == 0 ? 0 : esperaTotalNanos / 1_000_000.0 / prestamos;
+    }
+
+
+    public double getEsperaMaximaMs() {
+        return esperaMaximaNanos / 1_000_000.0;
+    }
+
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+
+    public long getCreadas() {
+        return creadas;
+    }
+
+
+    public long getDestruidas() {
+        return destruidas;
+    }
+
+
+    public long getDescartadasValidacion() {
+        return descartadasValidacion;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[min=%d, max=%d, prestadas=%d, ociosas=%d, esperando=%d, prestamos=%d, " +
+                        "esperaMedia=%.3f ms, esperaMax=%.3f ms, timeouts=%d, creadas=%d, destruidas=%d, invalidas=%d]",
+                minimo, maximo, prestadas, ociosas, esperando, prestamos, getEsperaMediaMs(), getEsperaMaximaMs(),
+                timeouts, creadas, destruidas, descartadasValidacion);
+    }
+}
@@ -0,0 +1,80 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de duraciones en nanosegundos, seguro entre hilos y de tamaño fijo.
+ * Cada potencia de dos se divide en 8 cubos, así que un percentil se conoce con un error relativo de como mucho
+ * un 12,5 %, desde 1 ns hasta el máximo de un long, con 512 contadores.
+ *
+ * @author Aritz
+ */
+class Histograma {
+    private static final int BITS_SUBCUBO = 3;
+    private static final int SUBCUBOS = 1 << BITS_SUBCUBO;
+    private static final int CUBOS = 64 * SUBCUBOS;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBOS);
+
+    /**
+     * Anota una duración.
+     *
+     * @param nanos Duración en nanosegundos; las negativas cuentan como 0.
+     */
+    void registrar(long nanos) {
+        cuentas.incrementAndGet(cubo(Math.max(0, nanos)));
+    }
+
+    /**
+     * Calcula un percentil de las duraciones anotadas.
+     *
+     * @param percentil Entre 0 y 100.
+     * @return El límite superior del cubo en el que cae el percentil, en nanosegundos, o 0 si no hay datos.
+     */
+    long percentil(double percentil) {
+        long[] copia = new long[CUBOS];
+        long total = 0;
+        for (int i = 0; i < CUBOS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBOS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(CUBOS - 1);
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBOS; i++) {
+            cuentas.set(i, 0);
+        }
+    }
+
+    static int cubo(long valor) {
+        if (valor < SUBCUBOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int subcubo = (int) (valor >>> (exponente - BITS_SUBCUBO)) & (SUBCUBOS - 1);
+        return (exponente - BITS_SUBCUBO + 1) * SUBCUBOS + subcubo;
+    }
+
+    static long limiteSuperior(int cubo) {
+        if (cubo < SUBCUBOS) {
+            return cubo;
+        }
+        int exponente = cubo / SUBCUBOS + BITS_SUBCUBO - 1;
+        long subcubo = cubo % SUBCUBOS;
+        long siguiente = (SUBCUBOS + subcubo + 1) << (exponente - BITS_SUBCUBO);
+        // el último cubo llega hasta Long.MAX_VALUE y el cálculo se desborda
+        return siguiente <= 0 ? Long.MAX_VALUE : siguiente - 1;
+    }
+}
@@ -0,0 +1,201 @@
+package es.aritzherrero.ejerciciol.db;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de cada método de los DAO: duración (con percentiles), llamadas, filas leídas y modificadas, errores de SQL
+ * y espera por una conexión del pool.
+ * <p>
+ * Cada método de los DAO abre y cierra su propia {@link ConexionDB}, así que se mide en ConexionDB, sin tocar los DAO:
+ * la llamada dura desde que se pide la conexión hasta que se cierra, y se atribuye al primer método de la pila que no
+ * es de este paquete (por ejemplo AvionDAO.insertar). Las transacciones se miden enteras en el método que las abre.
+ * Las filas y los errores se cuentan en las sentencias de {@link ConexionDB#prepareStatement(String)}; las que se crean
+ * con {@code getConexion().createStatement()} solo cuentan en la duración.
+ * <p>
+ * Desactivadas (por defecto, salvo con {@code -Dejerciciol.metricas=true}), cuestan una lectura de un campo volatile
+ * por conexión. Se pueden activar y consultar en caliente por JMX (JConsole, JMC) tras {@link #registrarJmx()}, en
+ * es.aritzherrero.ejerciciol:type=MetricasDAO.
+ *
+ * @author Aritz
+ */
+public final class MetricasDAO {
+    private static final String DOMINIO = "es.aritzherrero.ejerciciol:type=MetricasDAO";
+    private static final String PAQUETE = MetricasDAO.class.getPackageName() + ".";
+    private static final StackWalker PILA = StackWalker.getInstance();
+
+    private static final Map<String, MetricasMetodo> metodos = new ConcurrentHashMap<>();
+    private static volatile boolean activas = Boolean.getBoolean("ejerciciol.metricas");
+    private static MBeanServer servidor;
+
+    private MetricasDAO() {
+    }
+
+    public static boolean isActivas() {
+        return activas;
+    }
+
+    public static void setActivas(boolean activar) {
+        activas = activar;
+    }
+
+    /**
+     * Publica el control de las métricas y las de cada método en el servidor MBean de la plataforma.
+     * Las métricas de los métodos que se llamen después se publican según aparecen.
+     */
+    public static synchronized void registrarJmx() {
+        if (servidor != null) {
+            return;
+        }
+        servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            servidor.registerMBean(new Control(), new ObjectName(DOMINIO));
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+            servidor = null;
+            return;
+        }
+        for (MetricasMetodo metricas : metodos.values()) {
+            publicar(metricas);
+        }
+    }
+
+    /**
+     * @param metodo Método como Clase.metodo, por ejemplo AvionDAO.insertar.
+     * @return Sus métricas, o null si no se ha medido ninguna llamada.
+     */
+    public static MetricasMetodo getMetricas(String metodo) {
+        return metodos.get(metodo);
+    }
+
+    /**
+     * @return Las métricas de todos los métodos medidos.
+     */
+    public static Collection<MetricasMetodo> getMetricas() {
+        return new ArrayList<>(metodos.values());
+    }
+
+    /**
+     * Pone a cero las métricas de todos los métodos.
+     */
+    public static void reiniciar() {
+        for (MetricasMetodo metricas : metodos.values()) {
+            metricas.reiniciar();
+        }
+    }
+
+    /**
+     * Empieza a medir una llamada, si las métricas están activas.
+     *
+     * @return La medida, o null si están desactivadas.
+     */
+    static Medida iniciar() {
+        return activas ? new Medida(metodoLlamante(), System.nanoTime()) : null;
+    }
+
+    private static String metodoLlamante() {
+        return PILA.walk(pila -> pila
+                .filter(marco -> !marco.getClassName().startsWith(PAQUETE))
+                .findFirst()
+                .map(marco -> nombre(marco.getClassName(), marco.getMethodName()))
+                .orElse("desconocido"));
+    }
+
+    /**
+     * Clase.metodo, sin paquete ni clases anónimas, y con el método que contiene una lambda en lugar de la lambda.
+     */
+    static String nombre(String clase, String metodo) {
+        String simple = clase.substring(clase.lastIndexOf('.') + 1);
+        int dolar = simple.indexOf('$');
+        if (dolar >= 0) {
+            simple = simple.substring(0, dolar);
+        }
+        if (metodo.startsWith("lambda$")) {
+            int fin = metodo.indexOf('$', "lambda$".length());
+            metodo = metodo.substring("lambda$".length(), fin < 0 ? metodo.length() : fin);
+        }
+        return simple + "." + metodo;
+    }
+
+    private static MetricasMetodo metricas(String metodo) {
+        MetricasMetodo metricas = metodos.get(metodo);
+        if (metricas == null) {
+            MetricasMetodo nuevas = new MetricasMetodo(metodo);
+            metricas = metodos.putIfAbsent(metodo, nuevas);
+            if (metricas == null) {
+                metricas = nuevas;
+                publicarSiRegistrado(nuevas);
+            }
+        }
+        return metricas;
+    }
+
+    private static synchronized void publicarSiRegistrado(MetricasMetodo metricas) {
+        if (servidor != null) {
+            publicar(metricas);
+        }
+    }
+
+    private static void publicar(MetricasMetodo metricas) {
+        try {
+            ObjectName nombre = new ObjectName(DOMINIO + ",metodo=" + metricas.getMetodo());
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(metricas, nombre);
+            }
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas de " + metricas.getMetodo() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Una llamada en curso. La usa solo el hilo que hace la llamada.
+     */
+    static final class Medida {
+        final String metodo;
+        private final long inicio;
+        long esperaNanos = -1;
+        long filasLeidas;
+        long filasModificadas;
+        int errores;
+
+        private Medida(String metodo, long inicio) {
+            this.metodo = metodo;
+            this.inicio = inicio;
+        }
+
+        void terminar() {
+            metricas(metodo).registrar(System.nanoTime() - inicio, esperaNanos, filasLeidas, filasModificadas, errores);
+        }
+    }
+
+    private static final class Control implements MetricasDAOMXBean {
+        @Override
+        public boolean isActivas() {
+            return MetricasDAO.isActivas();
+        }
+
+        @Override
+        public void setActivas(boolean activas) {
+            MetricasDAO.setActivas(activas);
+        }
+
+        @Override
+        public String[] getMetodos() {
+            List<String> nombres = new ArrayList<>(metodos.keySet());
+            nombres.sort(null);
+            return nombres.toArray(new String[0]);
+        }
+
+        @Override
+        public void reiniciar() {
+            MetricasDAO.reiniciar();
+        }
+    }
+}
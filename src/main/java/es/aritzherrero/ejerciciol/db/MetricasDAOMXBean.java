@@ -0,0 +1,26 @@
+package es.aritzherrero.ejerciciol.db;
+
+/**
+ * Control de las métricas de los DAO por JMX.
+ *
+ * @author Aritz
+ */
+public interface MetricasDAOMXBean {
+
+    boolean isActivas();
+
+    /**
+     * Activa o desactiva la medición. Desactivada no se mide nada y las métricas conservan sus valores.
+     */
+    void setActivas(boolean activas);
+
+    /**
+     * @return Los métodos de los que hay métricas, como Clase.metodo.
+     */
+    String[] getMetodos();
+
+    /**
+     * Pone a cero las métricas de todos los métodos.
+     */
+    void reiniciar();
+}
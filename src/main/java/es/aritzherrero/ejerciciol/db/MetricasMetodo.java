@@ -0,0 +1,136 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas acumuladas de un método de los DAO: llamadas, errores, filas y histogramas de la duración y de la espera
+ * por una conexión del pool. Las actualizan a la vez los hilos que llaman al método.
+ *
+ * @author Aritz
+ */
+public class MetricasMetodo implements MetricasMetodoMXBean {
+    private final String metodo;
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder filasLeidas = new LongAdder();
+    private final LongAdder filasModificadas = new LongAdder();
+    private final LongAdder latenciaTotalNanos = new LongAdder();
+    private final LongAccumulator latenciaMaximaNanos = new LongAccumulator(Math::max, 0);
+    private final Histograma latencias = new Histograma();
+    private final LongAdder esperas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final Histograma esperasConexion = new Histograma();
+
+    MetricasMetodo(String metodo) {
+        this.metodo = metodo;
+    }
+
+    /**
+     * Anota una llamada terminada.
+     *
+     * @param nanos       Duración de la llamada, desde que se pidió la conexión hasta que se cerró.
+     * @param esperaNanos Tiempo esperando una conexión del pool, o -1 si usó la de una transacción abierta.
+     */
+    void registrar(long nanos, long esperaNanos, long leidas, long modificadas, int errores) {
+        llamadas.increment();
+        latenciaTotalNanos.add(nanos);
+        latenciaMaximaNanos.accumulate(nanos);
+        latencias.registrar(nanos);
+        if (esperaNanos >= 0) {
+            esperas.increment();
+            esperaTotalNanos.add(esperaNanos);
+            esperasConexion.registrar(esperaNanos);
+        }
+        filasLeidas.add(leidas);
+        filasModificadas.add(modificadas);
+        this.errores.add(errores);
+    }
+
+    @Override
+    public String getMetodo() {
+        return metodo;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return llamadas.sum();
+    }
+
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    @Override
+    public long getFilasLeidas() {
+        return filasLeidas.sum();
+    }
+
+    @Override
+    public long getFilasModificadas() {
+        return filasModificadas.sum();
+    }
+
+    @Override
+    public double getLatenciaMediaMs() {
+        long n = llamadas.sum();
+        return n == 0 ? 0 : latenciaTotalNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getLatenciaP50Ms() {
+        return percentilMs(50);
+    }
+
+    @Override
+    public double getLatenciaP90Ms() {
+        return percentilMs(90);
+    }
+
+    @Override
+    public double getLatenciaP99Ms() {
+        return percentilMs(99);
+    }
+
+    private double percentilMs(double percentil) {
+        // el histograma da el límite del cubo, que puede pasar del máximo real
+        return Math.min(latencias.percentil(percentil), latenciaMaximaNanos.get()) / 1e6;
+    }
+
+    @Override
+    public double getLatenciaMaximaMs() {
+        return latenciaMaximaNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getEsperaConexionMediaMs() {
+        long n = esperas.sum();
+        return n == 0 ? 0 : esperaTotalNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getEsperaConexionP99Ms() {
+        return esperasConexion.percentil(99) / 1e6;
+    }
+
+    @Override
+    public void reiniciar() {
+        llamadas.reset();
+        errores.reset();
+        filasLeidas.reset();
+        filasModificadas.reset();
+        latenciaTotalNanos.reset();
+        latenciaMaximaNanos.reset();
+        latencias.reiniciar();
+        esperas.reset();
+        esperaTotalNanos.reset();
+        esperasConexion.reiniciar();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d llamadas, %d errores, p50 %.3f ms, p99 %.3f ms, máx %.3f ms", metodo,
+                getLlamadas(), getErrores(), getLatenciaP50Ms(), getLatenciaP99Ms(), getLatenciaMaximaMs());
+    }
+}
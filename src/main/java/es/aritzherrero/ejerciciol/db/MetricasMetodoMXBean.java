@@ -0,0 +1,38 @@
+package es.aritzherrero.ejerciciol.db;
+
+/**
+ * Métricas de un método de los DAO publicadas por JMX. Los tiempos están en milisegundos.
+ *
+ * @author Aritz
+ */
+public interface MetricasMetodoMXBean {
+
+    String getMetodo();
+
+    long getLlamadas();
+
+    long getErrores();
+
+    long getFilasLeidas();
+
+    long getFilasModificadas();
+
+    double getLatenciaMediaMs();
+
+    double getLatenciaP50Ms();
+
+    double getLatenciaP90Ms();
+
+    double getLatenciaP99Ms();
+
+    double getLatenciaMaximaMs();
+
+    double getEsperaConexionMediaMs();
+
+    double getEsperaConexionP99Ms();
+
+    /**
+     * Pone a cero los contadores y los histogramas del método.
+     */
+    void reiniciar();
+}
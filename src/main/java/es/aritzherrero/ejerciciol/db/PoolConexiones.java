@@ -0,0 +1,282 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool acotado de conexiones a la bbdd.
+ * Mantiene un mínimo de conexiones abiertas, no supera el máximo, valida las conexiones
+ * al prestarlas y cierra las que llevan demasiado tiempo ociosas.
+ *
+ * @author Aritz
+ */
+public class PoolConexiones {
+
+    private final String url;
+    private final Properties connConfig;
+    private final int minimo;
+    private final int maximo;
+    private final long tiempoOciosoMs;
+    private final long esperaMaximaMs;
+    private final int segundosValidacion;
+    private final int capacidadSentencias;
+
+    private final Deque<Entrada> libres = new ArrayDeque<>();
+    private final Semaphore permisos;
+    private final ScheduledExecutorService limpiador;
+    private volatile boolean cerrado;
+
+    // estadísticas
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong creadas = new AtomicLong();
+    private final AtomicLong destruidas = new AtomicLong();
+    private final AtomicLong descartadasValidacion = new AtomicLong();
+
+    /**
+     * Crea el pool y abre las conexiones mínimas.
+     *
+     * @param url                URL JDBC de la bbdd.
+     * @param connConfig         Propiedades de la conexión (usuario, contraseña...).
+     * @param minimo             Número de conexiones que se mantienen abiertas aunque estén ociosas.
+     * @param maximo             Número máximo de conexiones prestadas a la vez.
+     * @param tiempoOciosoMs     Tiempo tras el que se cierra una conexión ociosa por encima del mínimo.
+     * @param esperaMaximaMs     Tiempo máximo de espera para conseguir una conexión.
+     * @param segundosValidacion Segundos que se espera a {@link Connection#isValid(int)} al prestar.
+     * @param capacidadSentencias Sentencias preparadas que se cachean por conexión.
+     * @throws SQLException si no se pueden abrir las conexiones mínimas.
+     */
+    public PoolConexiones(String url, Properties connConfig, int minimo, int maximo,
+                          long tiempoOciosoMs, long esperaMaximaMs, int segundosValidacion,
+                          int capacidadSentencias) throws SQLException {
+        if (minimo < 0 || maximo < 1 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaño de pool no válido: min=" + minimo + ", max=" + maximo);
+        }
+        this.url = url;
+        this.connConfig = connConfig;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tiempoOciosoMs = tiempoOciosoMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.segundosValidacion = segundosValidacion;
+        this.capacidadSentencias = capacidadSentencias;
+        this.permisos = new Semaphore(maximo, true);
+
+        try {
+            for (int i = 0; i < minimo; i++) {
+                libres.push(new Entrada(abrirConexion(), capacidadSentencias));
+            }
+            if (creadas.get() > 0) {
+                mostrarDatosConexion(libres.peek().conexion);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // el pool no llega a existir: cerrar las que sí se abrieron para no dejarlas colgadas
+            Entrada entrada;
+            while ((entrada = sacarLibre()) != null) {
+                destruir(entrada);
+            }
+            throw e;
+        }
+
+        limpiador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-conexiones-limpiador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, tiempoOciosoMs / 2);
+        limpiador.scheduleWithFixedDelay(this::cerrarOciosas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool. Si no hay ninguna libre y no se ha llegado al máximo, abre una nueva;
+     * si se ha llegado, espera como mucho el tiempo configurado.
+     *
+     * @return La entrada del pool con la conexión prestada.
+     * @throws SQLException si se agota el tiempo de espera o no se puede abrir la conexión.
+     */
+    Entrada prestar() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("No hay conexiones libres tras esperar " + esperaMaximaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", e);
+        }
+        registrarEspera(System.nanoTime() - inicio);
+
+        try {
+            Entrada entrada;
+            while ((entrada = sacarLibre()) != null) {
+                if (esValida(entrada)) {
+                    prestamos.incrementAndGet();
+                    return entrada;
+                }
+                descartadasValidacion.incrementAndGet();
+                destruir(entrada);
+            }
+            entrada = new Entrada(abrirConexion(), capacidadSentencias);
+            prestamos.incrementAndGet();
+            return entrada;
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool. Si la conexión se ha quedado en una transacción abierta
+     * se deshace, y si está rota se cierra en lugar de reutilizarla.
+     *
+     * @param entrada La entrada devuelta.
+     */
+    void devolver(Entrada entrada) {
+        try {
+            boolean reutilizable = !cerrado && !entrada.conexion.isClosed();
+            if (reutilizable && !entrada.conexion.getAutoCommit()) {
+                entrada.conexion.rollback();
+                entrada.conexion.setAutoCommit(true);
+            }
+            if (reutilizable) {
+                entrada.ultimoUso = System.currentTimeMillis();
+                synchronized (libres) {
+                    libres.push(entrada);
+                }
+            } else {
+                destruir(entrada);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            destruir(entrada);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Devuelve una foto de las estadísticas de uso del pool.
+     *
+     * @return Las estadísticas actuales.
+     */
+    public EstadisticasPool getEstadisticas() {
+        int ociosas;
+        synchronized (libres) {
+            ociosas = libres.size();
+        }
+        return new EstadisticasPool(minimo, maximo, maximo - permisos.availablePermits(), ociosas,
+                permisos.getQueueLength(), prestamos.get(), esperaTotalNanos.get(), esperaMaximaNanos.get(),
+                timeouts.get(), creadas.get(), destruidas.get(), descartadasValidacion.get());
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones ociosas. Las prestadas se cierran al devolverse.
+     */
+    public void cerrar() {
+        cerrado = true;
+        limpiador.shutdownNow();
+        Entrada entrada;
+        while ((entrada = sacarLibre()) != null) {
+            destruir(entrada);
+        }
+    }
+
+    private Entrada sacarLibre() {
+        synchronized (libres) {
+            return libres.poll();
+        }
+    }
+
+    private boolean esValida(Entrada entrada) {
+        try {
+            return !entrada.conexion.isClosed() && entrada.conexion.isValid(segundosValidacion);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cierra las conexiones que llevan más tiempo ociosas del permitido, respetando el mínimo.
+     * Las más antiguas quedan al final de la pila porque las devueltas se apilan arriba.
+     */
+    private void cerrarOciosas() {
+        long limite = System.currentTimeMillis() - tiempoOciosoMs;
+        while (true) {
+            Entrada entrada;
+            synchronized (libres) {
+                entrada = libres.peekLast();
+                if (entrada == null || libres.size() <= minimo || entrada.ultimoUso > limite) {
+                    return;
+                }
+                libres.pollLast();
+            }
+            destruir(entrada);
+        }
+    }
+
+    private Connection abrirConexion() throws SQLException {
+        Connection conexion = DriverManager.getConnection(url, connConfig);
+        conexion.setAutoCommit(true);
+        creadas.incrementAndGet();
+        return conexion;
+    }
+
+    private void destruir(Entrada entrada) {
+        destruidas.incrementAndGet();
+        entrada.sentencias.cerrar();
+        try {
+            entrada.conexion.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        esperaTotalNanos.addAndGet(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void mostrarDatosConexion(Connection conexion) throws SQLException {
+        DatabaseMetaData databaseMetaData = conexion.getMetaData();
+        //debug
+        System.out.println();
+        System.out.println("--- Datos de conexión ------------------------------------------");
+        System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
+        System.out.printf("  Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
+        System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
+        System.out.printf("  Versión: %s%n", databaseMetaData.getDriverVersion());
+        System.out.println("----------------------------------------------------------------");
+        System.out.println();
+    }
+
+    /**
+     * Conexión física gestionada por el pool, con su caché de sentencias preparadas.
+     */
+    static final class Entrada {
+        final Connection conexion;
+        final CacheSentencias sentencias;
+        volatile long ultimoUso;
+
+        Entrada(Connection conexion, int capacidadSentencias) {
+            this.conexion = conexion;
+            this.sentencias = new CacheSentencias(conexion, capacidadSentencias);
+            this.ultimoUso = System.currentTimeMillis();
+        }
+    }
+}
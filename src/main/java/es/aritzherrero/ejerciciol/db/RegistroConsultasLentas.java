@@ -0,0 +1,294 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de consultas lentas: cada ejecución de una sentencia de {@link ConexionDB#prepareStatement(String)} que
+ * tarda más que el umbral se apunta en un fichero local con la hora, lo que tardó, las filas, la acción del
+ * controlador que la lanzó, el método del DAO, el SQL y los parámetros. Los parámetros de las sentencias sobre la
+ * tabla usuarios no se escriben.
+ * <p>
+ * Está desactivado por defecto. Activo, cada sentencia pasa por un proxy que guarda sus parámetros y mide cada
+ * ejecución; el ResultSet solo se envuelve si la consulta ha sido lenta, para contar sus filas.
+ * Las líneas se escriben en un hilo aparte a través de una cola acotada: la consulta solo paga formatear la línea,
+ * y solo si ha sido lenta. Si la cola se llena, las líneas se descartan y se cuentan en {@link #getDescartadas()}.
+ * Cuando el fichero pasa del tamaño máximo se rota: consultas-lentas.log pasa a ser consultas-lentas.log.1, este
+ * a .2, etc., y el más antiguo se borra.
+ * <p>
+ * Se configura con propiedades del sistema:
+ * <ul>
+ *     <li>{@code ejerciciol.lentas.umbralMs} (-1): umbral en milisegundos, por ejemplo 1000; negativo para
+ *     desactivarlo.</li>
+ *     <li>{@code ejerciciol.lentas.fichero} (~/.ejerciciol/consultas-lentas.log).</li>
+ *     <li>{@code ejerciciol.lentas.tamanioMax} (5 MB) y {@code ejerciciol.lentas.ficheros} (5): rotación.</li>
+ * </ul>
+ *
+ * @author Aritz
+ */
+public final class RegistroConsultasLentas {
+    private static final long UMBRAL_MS = Long.getLong("ejerciciol.lentas.umbralMs", -1L);
+    private static final long UMBRAL_NANOS = TimeUnit.MILLISECONDS.toNanos(UMBRAL_MS);
+    private static final Path FICHERO = Path.of(System.getProperty("ejerciciol.lentas.fichero",
+            Path.of(System.getProperty("user.home"), ".ejerciciol", "consultas-lentas.log").toString()));
+    private static final long TAMANIO_MAX = Long.getLong("ejerciciol.lentas.tamanioMax", 5L * 1024 * 1024);
+    private static final int FICHEROS = Integer.getInteger("ejerciciol.lentas.ficheros", 5);
+    private static final int COLA_MAX = 1000;
+    private static final int LONGITUD_MAX_VALOR = 200;
+    private static final String CONTROLADORES = "es.aritzherrero.ejerciciol.Control.";
+    private static final String PAQUETE = RegistroConsultasLentas.class.getPackageName() + ".";
+    private static final Pattern TABLA_USUARIOS = Pattern.compile("\\busuarios\\b", Pattern.CASE_INSENSITIVE);
+    private static final StackWalker PILA = StackWalker.getInstance();
+    // línea que pide al escritor que termine; las de verdad nunca están vacías
+    private static final String FIN = "";
+
+    private static final BlockingQueue<String> cola = new ArrayBlockingQueue<>(COLA_MAX);
+    private static final AtomicLong registradas = new AtomicLong();
+    private static final AtomicLong descartadas = new AtomicLong();
+    private static Thread escritor;
+    private static boolean cerrado;
+
+    private RegistroConsultasLentas() {
+    }
+
+    /**
+     * @return true si se ha configurado un umbral no negativo.
+     */
+    public static boolean isActivo() {
+        return UMBRAL_MS >= 0;
+    }
+
+    static boolean esLenta(long nanos) {
+        return nanos >= UMBRAL_NANOS;
+    }
+
+    /**
+     * @return Consultas lentas apuntadas desde que arrancó la aplicación.
+     */
+    public static long getRegistradas() {
+        return registradas.get();
+    }
+
+    /**
+     * @return Consultas lentas que no se han escrito porque la cola estaba llena.
+     */
+    public static long getDescartadas() {
+        return descartadas.get();
+    }
+
+    /**
+     * Apunta una ejecución lenta. No espera a que se escriba.
+     *
+     * @param parametros Valores de los parámetros, por posición.
+     * @param filasLote  Filas del lote si se ejecutó con executeBatch; los parámetros son los de la última.
+     * @param filas      Filas leídas o modificadas, o -1 si no se sabe.
+     * @param error      Mensaje del error si falló, o null.
+     */
+    static void registrar(String sql, Object[] parametros, int filasLote, long nanos, long filas, String error) {
+        StringBuilder linea = new StringBuilder(256);
+        linea.append(LocalDateTime.now())
+                .append(String.format(Locale.ROOT, " %.1f ms", nanos / 1e6))
+                .append(" filas=").append(filas);
+        String[] llamante = llamante();
+        linea.append(" accion=").append(llamante[0])
+                .append(" metodo=").append(llamante[1])
+                .append(" hilo=").append(nombreHilo());
+        if (filasLote > 0) {
+            linea.append(" lote=").append(filasLote);
+        }
+        linea.append(" sql=\"").append(enUnaLinea(sql)).append('"');
+        linea.append(" parametros=");
+        if (TABLA_USUARIOS.matcher(sql).find()) {
+            linea.append("[ocultos]");
+        } else {
+            linea.append('[');
+            for (int i = 0; i < parametros.length; i++) {
+                if (i > 0) {
+                    linea.append(", ");
+                }
+                linea.append(formatear(parametros[i]));
+            }
+            linea.append(']');
+        }
+        if (error != null) {
+            linea.append(" error=\"").append(enUnaLinea(error)).append('"');
+        }
+        encolar(linea.toString());
+    }
+
+    /**
+     * Deja de aceptar líneas y espera un poco a que se escriban las pendientes. Se llama al salir de la aplicación.
+     */
+    public static void cerrar() {
+        Thread hilo;
+        synchronized (RegistroConsultasLentas.class) {
+            cerrado = true;
+            hilo = escritor;
+        }
+        if (hilo != null) {
+            try {
+                if (cola.offer(FIN, 2, TimeUnit.SECONDS)) {
+                    hilo.join(2_000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void encolar(String linea) {
+        synchronized (RegistroConsultasLentas.class) {
+            if (cerrado) {
+                descartadas.incrementAndGet();
+                return;
+            }
+            if (escritor == null) {
+                escritor = Thread.ofPlatform().name("consultas-lentas").daemon().start(RegistroConsultasLentas::escribir);
+            }
+        }
+        if (cola.offer(linea)) {
+            registradas.incrementAndGet();
+        } else {
+            descartadas.incrementAndGet();
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: escribe las líneas según llegan, en bloques, y rota el fichero cuando hace falta.
+     */
+    private static void escribir() {
+        List<String> bloque = new ArrayList<>();
+        boolean fin = false;
+        while (!fin) {
+            try {
+                bloque.add(cola.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            cola.drainTo(bloque);
+            fin = bloque.remove(FIN);
+            if (bloque.isEmpty()) {
+                continue;
+            }
+            try {
+                Path carpeta = FICHERO.toAbsolutePath().getParent();
+                if (carpeta != null) {
+                    Files.createDirectories(carpeta);
+                }
+                if (Files.exists(FICHERO) && Files.size(FICHERO) >= TAMANIO_MAX) {
+                    rotar();
+                }
+                try (BufferedWriter out = Files.newBufferedWriter(FICHERO, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (String linea : bloque) {
+                        out.write(linea);
+                        out.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                descartadas.addAndGet(bloque.size());
+                System.err.println("No se pudo escribir el registro de consultas lentas: " + e.getMessage());
+            }
+            bloque.clear();
+        }
+    }
+
+    private static void rotar() throws IOException {
+        Files.deleteIfExists(rotado(FICHEROS - 1));
+        for (int i = FICHEROS - 2; i >= 1; i--) {
+            Path origen = rotado(i);
+            if (Files.exists(origen)) {
+                Files.move(origen, rotado(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (FICHEROS > 1) {
+            Files.move(FICHERO, rotado(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(FICHERO);
+        }
+    }
+
+    private static Path rotado(int numero) {
+        return FICHERO.resolveSibling(FICHERO.getFileName() + "." + numero);
+    }
+
+    /**
+     * @return La acción del controlador (o "-" si la consulta no viene de uno) y el método del DAO.
+     */
+    private static String[] llamante() {
+        return PILA.walk(pila -> {
+            String accion = "-";
+            String metodo = "-";
+            Iterator<StackWalker.StackFrame> marcos = pila.iterator();
+            while (marcos.hasNext()) {
+                StackWalker.StackFrame marco = marcos.next();
+                String clase = marco.getClassName();
+                // este paquete, la reflexión y los proxies de las sentencias
+                if (clase.startsWith(PAQUETE) || clase.startsWith("java.") || clase.startsWith("jdk.")) {
+                    continue;
+                }
+                String nombre = MetricasDAO.nombre(clase, marco.getMethodName());
+                if (metodo.equals("-")) {
+                    metodo = nombre;
+                }
+                if (clase.startsWith(CONTROLADORES)) {
+                    accion = nombre;
+                    break;
+                }
+            }
+            return new String[]{accion, metodo};
+        });
+    }
+
+    private static String nombreHilo() {
+        // los hilos virtuales de EjecutorDAO no tienen nombre
+        Thread hilo = Thread.currentThread();
+        return hilo.getName().isEmpty() ? "#" + hilo.threadId() : hilo.getName();
+    }
+
+    private static String formatear(Object valor) {
+        if (valor == null) {
+            return "NULL";
+        }
+        if (valor instanceof String texto) {
+            String corto = texto.length() > LONGITUD_MAX_VALOR ? texto.substring(0, LONGITUD_MAX_VALOR) + "..." : texto;
+            return "'" + enUnaLinea(corto).replace("'", "''") + "'";
+        }
+        if (valor instanceof Number || valor instanceof Boolean) {
+            return valor.toString();
+        }
+        if (valor instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (valor instanceof Blob || valor instanceof InputStream) {
+            return "<binario>";
+        }
+        if (valor instanceof Clob || valor instanceof Reader) {
+            return "<texto>";
+        }
+        return "'" + enUnaLinea(valor.toString()) + "'";
+    }
+
+    private static String enUnaLinea(String texto) {
+        return texto.replace('\n', ' ').replace('\r', ' ').replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,180 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Envoltorio de una sentencia preparada de la caché, para las {@link MetricasDAO} y el
+ * {@link RegistroConsultasLentas}:
+ * <ul>
+ *     <li>Anota en la {@link MetricasDAO.Medida} de su ConexionDB las filas leídas y modificadas y los errores de SQL.</li>
+ *     <li>Guarda los parámetros que se van fijando y mide cada ejecución; si pasa del umbral, la manda al registro de
+ *     consultas lentas. En las consultas se mide executeQuery, que con el driver de MySQL ya trae todas las filas; si
+ *     ha sido lenta, se apunta al terminar de leer el ResultSet (o al cerrarlo), con las filas leídas.</li>
+ * </ul>
+ * Solo se usa si alguna de las dos cosas está activa, y el ResultSet solo se envuelve si hay que contar sus filas:
+ * con las métricas activas, o si la consulta ha sido lenta.
+ *
+ * @author Aritz
+ */
+final class SentenciaInstrumentada implements InvocationHandler {
+    private final PreparedStatement pstmt;
+    private final String sql;
+    // null si las métricas están desactivadas
+    private final MetricasDAO.Medida medida;
+    private final boolean lentas;
+    private Object[] parametros = new Object[8];
+    private int numParametros;
+    private int filasLote;
+
+    private SentenciaInstrumentada(PreparedStatement pstmt, String sql, MetricasDAO.Medida medida, boolean lentas) {
+        this.pstmt = pstmt;
+        this.sql = sql;
+        this.medida = medida;
+        this.lentas = lentas;
+    }
+
+    /**
+     * @param medida Medida de la ConexionDB, o null si las métricas están desactivadas.
+     * @param lentas true si hay que medir cada ejecución para el registro de consultas lentas.
+     */
+    static PreparedStatement envolver(PreparedStatement pstmt, String sql, MetricasDAO.Medida medida, boolean lentas) {
+        return (PreparedStatement) Proxy.newProxyInstance(SentenciaInstrumentada.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new SentenciaInstrumentada(pstmt, sql, medida, lentas));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String nombre = method.getName();
+        if (lentas) {
+            guardarParametros(nombre, args);
+        }
+        long inicio = lentas && nombre.startsWith("execute") ? System.nanoTime() : 0;
+        Object resultado;
+        try {
+            resultado = invocar(pstmt, method, args);
+        } catch (SQLException e) {
+            if (lentas && nombre.startsWith("execute")) {
+                registrarSiLenta(inicio, -1, e.getMessage());
+            }
+            throw e;
+        }
+        switch (nombre) {
+            case "executeQuery":
+                long nanos = lentas ? System.nanoTime() - inicio : -1;
+                boolean lenta = lentas && RegistroConsultasLentas.esLenta(nanos);
+                if (medida == null && !lenta) {
+                    return resultado;
+                }
+                return envolverResultado((ResultSet) resultado, lenta ? nanos : -1);
+            case "executeUpdate":
+                modificadas(inicio, (Integer) resultado);
+                break;
+            case "executeLargeUpdate":
+                modificadas(inicio, (Long) resultado);
+                break;
+            case "executeBatch":
+                long filas = 0;
+                for (int n : (int[]) resultado) {
+                    // SUCCESS_NO_INFO (-2) no dice cuántas
+                    filas += Math.max(0, n);
+                }
+                modificadas(inicio, filas);
+                filasLote = 0;
+                break;
+            case "execute":
+                if (lentas) {
+                    registrarSiLenta(inicio, -1, null);
+                }
+                break;
+            default:
+                break;
+        }
+        return resultado;
+    }
+
+    private Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            if (medida != null && e.getCause() instanceof SQLException) {
+                medida.errores++;
+            }
+            throw e.getCause();
+        }
+    }
+
+    private void guardarParametros(String nombre, Object[] args) {
+        if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer posicion) {
+            if (posicion < 1) {
+                return;
+            }
+            if (posicion > parametros.length) {
+                parametros = Arrays.copyOf(parametros, Math.max(posicion, parametros.length * 2));
+            }
+            // setNull(posicion, tipo): el segundo argumento es el tipo SQL, no el valor
+            parametros[posicion - 1] = nombre.equals("setNull") ? null : args[1];
+            numParametros = Math.max(numParametros, posicion);
+        } else if (nombre.equals("clearParameters")) {
+            Arrays.fill(parametros, null);
+            numParametros = 0;
+        } else if (nombre.equals("addBatch") && args == null) {
+            filasLote++;
+        }
+    }
+
+    private void modificadas(long inicio, long filas) {
+        if (medida != null) {
+            medida.filasModificadas += filas;
+        }
+        if (lentas) {
+            registrarSiLenta(inicio, filas, null);
+        }
+    }
+
+    private void registrarSiLenta(long inicio, long filas, String error) {
+        long nanos = System.nanoTime() - inicio;
+        if (RegistroConsultasLentas.esLenta(nanos)) {
+            RegistroConsultasLentas.registrar(sql, Arrays.copyOf(parametros, numParametros), filasLote, nanos, filas,
+                    error);
+        }
+    }
+
+    /**
+     * @param nanos Lo que tardó la consulta si ha sido lenta, o -1 si no hay que apuntarla.
+     */
+    private ResultSet envolverResultado(ResultSet rs, long nanos) {
+        // los parámetros de ahora: la sentencia se puede volver a usar antes de terminar de leer
+        Object[] parametrosConsulta = nanos < 0 ? null : Arrays.copyOf(parametros, numParametros);
+        int loteConsulta = filasLote;
+        long[] filas = new long[1];
+        boolean[] registrada = {nanos < 0};
+        return (ResultSet) Proxy.newProxyInstance(SentenciaInstrumentada.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    Object resultado = invocar(rs, method, args);
+                    String nombre = method.getName();
+                    boolean fin = nombre.equals("close");
+                    if (nombre.equals("next")) {
+                        if (Boolean.TRUE.equals(resultado)) {
+                            filas[0]++;
+                            if (medida != null) {
+                                medida.filasLeidas++;
+                            }
+                        } else {
+                            fin = true;
+                        }
+                    }
+                    if (fin && !registrada[0]) {
+                        registrada[0] = true;
+                        RegistroConsultasLentas.registrar(sql, parametrosConsulta, loteConsulta, nanos, filas[0], null);
+                    }
+                    return resultado;
+                });
+    }
+}
@@ -0,0 +1,190 @@
+package es.aritzherrero.ejerciciol.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transacción ligada al hilo actual.
+ * Mientras está abierta, cada {@code new ConexionDB()} del mismo hilo usa su conexión en lugar de pedir otra al pool,
+ * así que varias llamadas a los DAO se confirman juntas con un solo commit.
+ * Se puede abrir de forma anidada: solo la más externa hace el commit, y si cualquier nivel se cierra sin llamar a
+ * {@link #confirmar()} la transacción entera se deshace.
+ * <p>
+ * Los DAO capturan sus errores de SQL y devuelven false, -1 o null; dentro de una transacción, además, la marcan con
+ * {@link #marcarSoloRollback()}, de modo que un paso fallido no deja confirmar los que sí han ido bien.
+ *
+ * <pre>
+ * try (Transaccion transaccion = Transaccion.iniciar()) {
+ *     ...llamadas a los DAO...
+ *     transaccion.confirmar();
+ * }
+ * </pre>
+ *
+ * @author Aritz
+ */
+public class Transaccion implements AutoCloseable {
+    private static final ThreadLocal<Transaccion> ACTUAL = new ThreadLocal<>();
+
+    private final ConexionDB connection;
+    private final List<Runnable> alConfirmar = new ArrayList<>();
+    private int profundidad;
+    private boolean nivelConfirmado;
+    private boolean soloRollback;
+
+    private Transaccion(ConexionDB connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Abre una transacción en el hilo actual, o un nivel anidado de la que ya esté abierta.
+     *
+     * @return La transacción activa. Hay que cerrarla, preferiblemente con try-with-resources.
+     * @throws java.sql.SQLException Si no se puede obtener la conexión.
+     */
+    public static Transaccion iniciar() throws SQLException {
+        Transaccion transaccion = ACTUAL.get();
+        if (transaccion == null) {
+            ConexionDB connection = new ConexionDB();
+            try {
+                connection.getConexion().setAutoCommit(false);
+            } catch (SQLException e) {
+                connection.CloseConexion();
+                throw e;
+            }
+            transaccion = new Transaccion(connection);
+            ACTUAL.set(transaccion);
+        }
+        transaccion.profundidad++;
+        transaccion.nivelConfirmado = false;
+        return transaccion;
+    }
+
+    /**
+     * Ejecuta una operación dentro de una transacción: se confirma si termina bien y se deshace si lanza una excepción.
+     *
+     * @param operacion Operación que llama a los DAO.
+     * @return Lo que devuelva la operación.
+     * @throws java.sql.SQLException Si falla la operación o el commit.
+     */
+    public static <T> T ejecutar(Operacion<T> operacion) throws SQLException {
+        try (Transaccion transaccion = iniciar()) {
+            T resultado = operacion.ejecutar();
+            transaccion.confirmar();
+            return resultado;
+        }
+    }
+
+    /**
+     * @return true si hay una transacción abierta en el hilo actual.
+     */
+    public static boolean activa() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Marca la transacción abierta en el hilo actual para deshacerse al cerrar, si la hay. Lo llaman los DAO cuando
+     * falla una sentencia; a partir de ahí {@link #confirmar()} lanza una excepción.
+     */
+    public static void marcarSoloRollback() {
+        Transaccion transaccion = ACTUAL.get();
+        if (transaccion != null) {
+            transaccion.soloRollback = true;
+        }
+    }
+
+    /**
+     * Ejecuta una acción cuando se haga commit de la transacción abierta en el hilo actual, o enseguida si no hay
+     * ninguna. Si la transacción se deshace, la acción se descarta. Sirve para avisar de cambios que todavía podrían
+     * no llegar a guardarse.
+     *
+     * @param accion Acción a ejecutar tras el commit.
+     */
+    public static void alConfirmar(Runnable accion) {
+        Transaccion transaccion = ACTUAL.get();
+        if (transaccion == null) {
+            accion.run();
+        } else {
+            transaccion.alConfirmar.add(accion);
+        }
+    }
+
+    /**
+     * Conexión de la transacción abierta en el hilo actual, o null si no hay ninguna.
+     */
+    static ConexionDB conexionActual() {
+        Transaccion transaccion = ACTUAL.get();
+        return transaccion == null ? null : transaccion.connection;
+    }
+
+    /**
+     * Da por bueno el nivel actual. El commit se hace al cerrar el nivel más externo.
+     *
+     * @throws java.sql.SQLException Si la transacción ya está marcada para deshacerse porque ha fallado alguna
+     *                               operación; el nivel queda sin confirmar.
+     */
+    public void confirmar() throws SQLException {
+        if (soloRollback) {
+            throw new SQLException("La transacción se deshará porque falló una operación");
+        }
+        nivelConfirmado = true;
+    }
+
+    /**
+     * Cierra el nivel actual. Si no se ha confirmado, la transacción entera queda marcada para deshacerse.
+     * Al cerrar el nivel más externo se hace commit o rollback y se devuelve la conexión al pool.
+     *
+     * @throws java.sql.SQLException Si falla el commit, o si se confirmó este nivel pero un nivel interno había
+     *                               fallado y se ha deshecho todo.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (!nivelConfirmado) {
+            soloRollback = true;
+        }
+        boolean confirmado = nivelConfirmado;
+        nivelConfirmado = false;
+        if (--profundidad > 0) {
+            return;
+        }
+        ACTUAL.remove();
+        Connection conexion = connection.getConexion();
+        boolean guardada = false;
+        try {
+            if (soloRollback) {
+                conexion.rollback();
+                if (confirmado) {
+                    throw new SQLException("La transacción se ha deshecho porque falló una operación interna");
+                }
+            } else {
+                conexion.commit();
+                guardada = true;
+            }
+        } catch (SQLException e) {
+            if (!soloRollback) {
+                conexion.rollback();
+            }
+            throw e;
+        } finally {
+            try {
+                conexion.setAutoCommit(true);
+            } finally {
+                connection.CloseConexion();
+            }
+        }
+        if (guardada) {
+            for (Runnable accion : alConfirmar) {
+                accion.run();
+            }
+        }
+    }
+
+    /**
+     * Operación que se ejecuta dentro de una transacción.
+     */
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws SQLException;
+    }
+}
@@ -2,8 +2,11 @@ module es.aritzherrero.ejerciciol {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.management;
 
 
     opens es.aritzherrero.ejerciciol to javafx.fxml;
     exports es.aritzherrero.ejerciciol;
+    // las interfaces MXBean de las métricas
+    exports es.aritzherrero.ejerciciol.db to java.management;
 }
\ No newline at end of file
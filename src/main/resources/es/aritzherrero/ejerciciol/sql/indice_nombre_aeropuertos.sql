@@ -0,0 +1,3 @@
+-- Índice para la búsqueda de aeropuertos por prefijo del nombre (AeropuertoDAO.buscarPorNombre), que usa la tabla
+-- paginada. Con él, "nombre LIKE 'abc%'" recorre solo el tramo del índice que empieza por el prefijo.
+CREATE INDEX idx_aeropuertos_nombre ON aeropuertos (nombre);
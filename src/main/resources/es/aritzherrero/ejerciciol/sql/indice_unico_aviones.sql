@@ -0,0 +1,6 @@
+-- Un aeropuerto no puede tener dos aviones del mismo modelo (AvionDAO.existe).
+-- El índice único lo garantiza en la base de datos y permite comprobarlo con una sola búsqueda por índice.
+--
+-- Si ya hay duplicados la sentencia falla; se pueden localizar antes con:
+--   SELECT modelo, id_aeropuerto, COUNT(*) FROM aviones GROUP BY modelo, id_aeropuerto HAVING COUNT(*) > 1;
+ALTER TABLE aviones ADD CONSTRAINT uq_aviones_modelo_aeropuerto UNIQUE (modelo, id_aeropuerto);
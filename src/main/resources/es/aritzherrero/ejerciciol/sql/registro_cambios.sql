@@ -0,0 +1,50 @@
+-- Registro de cambios para que cada cliente vea lo que guardan los demás (SincronizadorCambios).
+-- Los disparadores apuntan cada alta (I), modificación (U) o baja (D) con una versión creciente; los clientes leen
+-- solo las versiones posteriores a la última que vieron y releen por clave primaria las filas afectadas.
+-- En las tablas de tipo, id es el del aeropuerto; en aviones, id_aeropuerto indica qué flota ha cambiado.
+CREATE TABLE registro_cambios (
+    version BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    tabla VARCHAR(32) NOT NULL,
+    id INT NOT NULL,
+    operacion CHAR(1) NOT NULL,
+    id_aeropuerto INT NULL,
+    fecha TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_registro_cambios_fecha (fecha)
+);
+
+CREATE TRIGGER trg_aeropuertos_ins AFTER INSERT ON aeropuertos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos', NEW.id, 'I');
+CREATE TRIGGER trg_aeropuertos_upd AFTER UPDATE ON aeropuertos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos', NEW.id, 'U');
+CREATE TRIGGER trg_aeropuertos_del AFTER DELETE ON aeropuertos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos', OLD.id, 'D');
+
+CREATE TRIGGER trg_aeropuertos_publicos_ins AFTER INSERT ON aeropuertos_publicos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_publicos', NEW.id_aeropuerto, 'I');
+CREATE TRIGGER trg_aeropuertos_publicos_upd AFTER UPDATE ON aeropuertos_publicos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_publicos', NEW.id_aeropuerto, 'U');
+CREATE TRIGGER trg_aeropuertos_publicos_del AFTER DELETE ON aeropuertos_publicos FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_publicos', OLD.id_aeropuerto, 'D');
+
+CREATE TRIGGER trg_aeropuertos_privados_ins AFTER INSERT ON aeropuertos_privados FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_privados', NEW.id_aeropuerto, 'I');
+CREATE TRIGGER trg_aeropuertos_privados_upd AFTER UPDATE ON aeropuertos_privados FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_privados', NEW.id_aeropuerto, 'U');
+CREATE TRIGGER trg_aeropuertos_privados_del AFTER DELETE ON aeropuertos_privados FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion) VALUES ('aeropuertos_privados', OLD.id_aeropuerto, 'D');
+
+CREATE TRIGGER trg_aviones_ins AFTER INSERT ON aviones FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion, id_aeropuerto) VALUES ('aviones', NEW.id, 'I', NEW.id_aeropuerto);
+-- si el avión cambia de aeropuerto, cambian las dos flotas
+CREATE TRIGGER trg_aviones_upd AFTER UPDATE ON aviones FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion, id_aeropuerto)
+    SELECT 'aviones', NEW.id, 'U', NEW.id_aeropuerto
+    UNION ALL
+    SELECT 'aviones', OLD.id, 'U', OLD.id_aeropuerto FROM DUAL WHERE OLD.id_aeropuerto <> NEW.id_aeropuerto;
+CREATE TRIGGER trg_aviones_del AFTER DELETE ON aviones FOR EACH ROW
+    INSERT INTO registro_cambios (tabla, id, operacion, id_aeropuerto) VALUES ('aviones', OLD.id, 'D', OLD.id_aeropuerto);
+
+-- Los clientes solo leen cambios recientes, así que los antiguos se pueden borrar.
+-- Necesita el planificador de eventos activo (SET GLOBAL event_scheduler = ON).
+CREATE EVENT ev_limpiar_registro_cambios ON SCHEDULE EVERY 1 HOUR
+    DO DELETE FROM registro_cambios WHERE fecha < NOW() - INTERVAL 1 DAY;
@@ -0,0 +1,117 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import es.aritzherrero.ejerciciol.Modelo.ResumenFlota;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la tabla hash de {@link EstadisticasFlota}, sin base de datos.
+ */
+class EstadisticasFlotaTest {
+
+    private static ResumenFlota resumen(int id) {
+        return new ResumenFlota(id, id % 7, id % 3, id * 100L, id * 10);
+    }
+
+    private static void comprobar(EstadisticasFlota.MapaEstadisticas mapa, int id) {
+        int i = mapa.buscar(id);
+        assertTrue(i >= 0, "falta el aeropuerto " + id);
+        assertTrue(mapa.coincide(i, resumen(id)), "datos cambiados del aeropuerto " + id);
+    }
+
+    @Test
+    void crecePorEncimaDeLaCapacidadInicial() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(4);
+        for (int id = 1; id <= 200; id++) {
+            mapa.poner(resumen(id));
+        }
+        assertEquals(200, mapa.tamanio);
+        assertTrue(mapa.claves.length >= 400);
+        for (int id = 1; id <= 200; id++) {
+            comprobar(mapa, id);
+        }
+    }
+
+    @Test
+    void ponerUnaClaveExistenteLaSustituye() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(4);
+        mapa.poner(resumen(5));
+        mapa.poner(new ResumenFlota(5, 1, 1, 1, 1));
+        assertEquals(1, mapa.tamanio);
+        assertEquals(1, mapa.resumen(mapa.buscar(5)).getTotal());
+    }
+
+    @Test
+    void quitarNoRompeLasCadenasDeSondeo() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(8);
+        for (int id = 1; id <= 300; id++) {
+            mapa.poner(resumen(id));
+        }
+        for (int id = 2; id <= 300; id += 2) {
+            mapa.quitar(id);
+        }
+        assertEquals(150, mapa.tamanio);
+        for (int id = 1; id <= 300; id++) {
+            if (id % 2 == 0) {
+                assertEquals(-1, mapa.buscar(id));
+            } else {
+                comprobar(mapa, id);
+            }
+        }
+    }
+
+    @Test
+    void creceDespuesDeBorrarSinPerderNiDuplicar() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(4);
+        for (int id = 1; id <= 50; id++) {
+            mapa.poner(resumen(id));
+        }
+        for (int id = 1; id <= 50; id += 3) {
+            mapa.quitar(id);
+        }
+        // los nuevos provocan más crecimientos con huecos ya liberados en la tabla
+        for (int id = 51; id <= 400; id++) {
+            mapa.poner(resumen(id));
+        }
+        for (int id = 1; id <= 50; id += 3) {
+            mapa.poner(resumen(id));
+        }
+        assertEquals(400, mapa.tamanio);
+        int[] claves = mapa.claves();
+        Arrays.sort(claves);
+        for (int id = 1; id <= 400; id++) {
+            assertEquals(id, claves[id - 1]);
+            comprobar(mapa, id);
+        }
+    }
+
+    @Test
+    void laVelocidadPendienteSobreviveAlCrecer() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(4);
+        mapa.poner(resumen(1));
+        mapa.velocidadPendiente[mapa.buscar(1)] = true;
+        for (int id = 2; id <= 100; id++) {
+            mapa.poner(resumen(id));
+        }
+        assertTrue(mapa.velocidadPendiente[mapa.buscar(1)]);
+        for (int id = 2; id <= 100; id++) {
+            assertTrue(!mapa.velocidadPendiente[mapa.buscar(id)]);
+        }
+    }
+
+    @Test
+    void vaciarLoQuitaTodo() {
+        EstadisticasFlota.MapaEstadisticas mapa = new EstadisticasFlota.MapaEstadisticas(4);
+        for (int id = 1; id <= 20; id++) {
+            mapa.poner(resumen(id));
+        }
+        mapa.vaciar();
+        assertEquals(0, mapa.tamanio);
+        assertEquals(0, mapa.claves().length);
+        assertEquals(-1, mapa.buscar(3));
+    }
+}
@@ -0,0 +1,81 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventoCambioTest {
+
+    /**
+     * Elemento de prueba: ID y grupo (por ejemplo, el aeropuerto de un avión).
+     */
+    private record Fila(int id, int grupo) {
+    }
+
+    private final List<Fila> lista = new ArrayList<>(List.of(new Fila(1, 10), new Fila(2, 10), new Fila(3, 10)));
+
+    private boolean aplicar(EventoCambio<?> evento) {
+        return evento.aplicar(Fila.class, lista, Fila::id, fila -> fila.grupo() == 10);
+    }
+
+    @Test
+    void creadoSeAniadeAlFinal() {
+        assertTrue(aplicar(EventoCambio.creado(Fila.class, 4, new Fila(4, 10))));
+        assertEquals(List.of(new Fila(1, 10), new Fila(2, 10), new Fila(3, 10), new Fila(4, 10)), lista);
+    }
+
+    @Test
+    void creadoQueNoPerteneceNoSeAniade() {
+        assertFalse(aplicar(EventoCambio.creado(Fila.class, 4, new Fila(4, 20))));
+        assertEquals(3, lista.size());
+    }
+
+    @Test
+    void modificadoSeSustituyeEnSuSitio() {
+        Fila nueva = new Fila(2, 10);
+        assertTrue(aplicar(EventoCambio.modificado(Fila.class, 2, nueva)));
+        assertEquals(3, lista.size());
+        assertTrue(lista.get(1) == nueva);
+    }
+
+    @Test
+    void modificadoQueDejaDePertenecerSeQuita() {
+        assertTrue(aplicar(EventoCambio.modificado(Fila.class, 2, new Fila(2, 20))));
+        assertEquals(List.of(new Fila(1, 10), new Fila(3, 10)), lista);
+    }
+
+    @Test
+    void modificadoQuePasaAPertenecerSeAniade() {
+        lista.remove(2);
+        assertTrue(aplicar(EventoCambio.modificado(Fila.class, 3, new Fila(3, 10))));
+        assertEquals(3, lista.size());
+    }
+
+    @Test
+    void eliminadoSeQuita() {
+        EventoCambio<Fila> evento = EventoCambio.eliminado(Fila.class, 1);
+        assertNull(evento.getValor());
+        assertTrue(aplicar(evento));
+        assertEquals(List.of(new Fila(2, 10), new Fila(3, 10)), lista);
+    }
+
+    @Test
+    void eliminadoQueNoEstabaNoCambiaNada() {
+        assertFalse(aplicar(EventoCambio.eliminado(Fila.class, 9)));
+        assertEquals(3, lista.size());
+    }
+
+    @Test
+    void otraClaseNoCambiaNada() {
+        assertFalse(aplicar(EventoCambio.eliminado(String.class, 1)));
+        assertFalse(aplicar(EventoCambio.modificado(String.class, 2, "otro")));
+        assertEquals(3, lista.size());
+        assertNull(EventoCambio.modificado(String.class, 2, "otro").getValor(Fila.class));
+    }
+}
@@ -0,0 +1,135 @@
+package es.aritzherrero.ejerciciol.DAO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceTrigramasTest {
+    private List<String> nombres;
+    private IndiceTrigramas<String> indice;
+
+    @BeforeEach
+    void crearIndice() {
+        // new String para que cada elemento sea un objeto distinto: el índice los distingue por identidad
+        nombres = new ArrayList<>(List.of(new String("Aeropuerto de Madrid"), new String("Aeropuerto de Málaga"),
+                new String("Barajas"), new String("El Prat")));
+        indice = new IndiceTrigramas<>(nombres, Function.identity());
+    }
+
+    @Test
+    void buscaPorContieneSinDistinguirMayusculas() {
+        BitSet resultado = indice.buscar("MAD");
+        assertEquals(1, resultado.cardinality());
+        assertTrue(resultado.get(0));
+
+        assertEquals(2, indice.buscar("puerto").cardinality());
+        assertEquals(0, indice.buscar("sevilla").cardinality());
+    }
+
+    @Test
+    void consultaVaciaNoFiltra() {
+        assertNull(indice.buscar(""));
+        assertNull(indice.filtro(""));
+    }
+
+    @Test
+    void consultasCortasRecorrenTodos() {
+        BitSet resultado = indice.buscar("el");
+        assertTrue(resultado.get(3));
+        assertEquals(1, resultado.cardinality());
+    }
+
+    @Test
+    void quitarDejaElHuecoVacioSinMoverALosDemas() {
+        String madrid = nombres.get(0);
+        indice.quitar(madrid);
+        assertEquals(3, indice.size());
+
+        BitSet resultado = indice.buscar("aeropuerto");
+        assertFalse(resultado.get(0));
+        assertTrue(resultado.get(1)); // Málaga sigue en su hueco
+
+        Predicate<String> filtro = indice.filtro("aeropuerto");
+        assertFalse(filtro.test(madrid));
+        assertTrue(filtro.test(nombres.get(1)));
+    }
+
+    @Test
+    void volverAAniadirUnElementoQuitadoUsaUnHuecoNuevo() {
+        String madrid = nombres.get(0);
+        indice.quitar(madrid);
+        indice.aniadir(madrid);
+        assertEquals(4, indice.size());
+
+        BitSet resultado = indice.buscar("madrid");
+        assertFalse(resultado.get(0));
+        assertTrue(resultado.get(4));
+        assertTrue(indice.filtro("madrid").test(madrid));
+    }
+
+    @Test
+    void elHuecoQuitadoNoLoOcupaOtroElemento() {
+        indice.quitar(nombres.get(2));
+        String nuevo = new String("Barcelona");
+        indice.aniadir(nuevo);
+
+        BitSet resultado = indice.buscar("bar");
+        assertFalse(resultado.get(2));
+        assertTrue(resultado.get(4));
+        assertEquals(1, resultado.cardinality());
+    }
+
+    @Test
+    void refinarLaConsultaParteDelResultadoAnterior() {
+        assertEquals(2, indice.buscar("aeropuerto").cardinality());
+        // contiene a la anterior: solo puede quedar un subconjunto
+        BitSet resultado = indice.buscar("aeropuerto de m");
+        assertEquals(2, resultado.cardinality());
+        resultado = indice.buscar("aeropuerto de mad");
+        assertEquals(1, resultado.cardinality());
+        assertTrue(resultado.get(0));
+    }
+
+    @Test
+    void unaConsultaNuevaNoParteDelResultadoAnterior() {
+        assertEquals(1, indice.buscar("madrid").cardinality());
+        // "prat" no contiene a "madrid": hay que volver al índice, no filtrar lo anterior
+        BitSet resultado = indice.buscar("prat");
+        assertEquals(1, resultado.cardinality());
+        assertTrue(resultado.get(3));
+        // borrar letras tampoco es refinar
+        assertEquals(2, indice.buscar("aeropuerto").cardinality());
+        assertEquals(2, indice.buscar("aero").cardinality());
+    }
+
+    @Test
+    void aniadirDespuesDeBuscarNoReutilizaElResultadoAnterior() {
+        assertEquals(0, indice.buscar("valen").cardinality());
+        String valencia = new String("Valencia");
+        indice.aniadir(valencia);
+        BitSet resultado = indice.buscar("valenc");
+        assertEquals(1, resultado.cardinality());
+        assertTrue(resultado.get(4));
+    }
+
+    @Test
+    void elFiltroAceptaLosElementosAniadidosDespues() {
+        Predicate<String> filtro = indice.filtro("aeropuerto");
+        String bilbao = new String("Aeropuerto de Bilbao");
+        String vigo = new String("Vigo");
+        indice.aniadir(bilbao);
+        indice.aniadir(vigo);
+        assertTrue(filtro.test(bilbao));
+        assertFalse(filtro.test(vigo));
+    }
+}
@@ -0,0 +1,161 @@
+package es.aritzherrero.ejerciciol.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la caché de sentencias con una conexión falsa que solo apunta qué se prepara y qué se cierra.
+ */
+class CacheSentenciasTest {
+    private final List<PreparedStatement> preparadas = new ArrayList<>();
+    private final Set<PreparedStatement> cerradas = new HashSet<>();
+    private CacheSentencias cache;
+
+    @BeforeEach
+    void crearCache() {
+        cache = new CacheSentencias(conexionFalsa(), 2);
+    }
+
+    private Connection conexionFalsa() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        PreparedStatement pstmt = sentenciaFalsa();
+                        preparadas.add(pstmt);
+                        return pstmt;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement sentenciaFalsa() {
+        PreparedStatement[] yo = new PreparedStatement[1];
+        yo[0] = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        cerradas.add(yo[0]);
+                        yield null;
+                    }
+                    case "isClosed" -> cerradas.contains(yo[0]);
+                    case "clearParameters", "clearBatch" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return yo[0];
+    }
+
+    private CacheSentencias.Sentencia obtener(String sql) throws SQLException {
+        return cache.obtener(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Test
+    void reutilizaLaSentenciaLiberada() throws SQLException {
+        CacheSentencias.Sentencia primera = obtener("SELECT 1");
+        cache.liberar(primera);
+        CacheSentencias.Sentencia segunda = obtener("SELECT 1");
+        assertSame(primera.pstmt, segunda.pstmt);
+        assertEquals(1, preparadas.size());
+        assertEquals(1, cache.getAciertos());
+        assertEquals(1, cache.getFallos());
+    }
+
+    @Test
+    void expulsaLaMenosUsadaRecientemente() throws SQLException {
+        CacheSentencias.Sentencia a = obtener("A");
+        cache.liberar(a);
+        CacheSentencias.Sentencia b = obtener("B");
+        cache.liberar(b);
+        cache.liberar(obtener("A")); // A pasa a ser la más reciente
+        cache.liberar(obtener("C"));
+
+        assertEquals(2, cache.getTamanio());
+        assertEquals(1, cache.getExpulsiones());
+        assertTrue(cerradas.contains(b.pstmt));
+        assertFalse(cerradas.contains(a.pstmt));
+    }
+
+    @Test
+    void noExpulsaUnaSentenciaEnUso() throws SQLException {
+        CacheSentencias.Sentencia a = obtener("A"); // sigue en uso, y es la menos reciente
+        CacheSentencias.Sentencia b = obtener("B");
+        cache.liberar(b);
+        cache.liberar(obtener("C"));
+
+        assertFalse(cerradas.contains(a.pstmt));
+        assertTrue(cerradas.contains(b.pstmt));
+        assertEquals(2, cache.getTamanio());
+
+        // A se sigue pudiendo usar y vuelve a la caché al liberarla
+        cache.liberar(a);
+        assertSame(a.pstmt, obtener("A").pstmt);
+    }
+
+    @Test
+    void siTodasEstanEnUsoSuperaLaCapacidadHastaQueSeLiberan() throws SQLException {
+        CacheSentencias.Sentencia a = obtener("A");
+        CacheSentencias.Sentencia b = obtener("B");
+        CacheSentencias.Sentencia c = obtener("C");
+        assertEquals(3, cache.getTamanio());
+        assertTrue(cerradas.isEmpty());
+
+        cache.liberar(a);
+        cache.liberar(b);
+        cache.liberar(c);
+        cache.liberar(obtener("D"));
+        assertEquals(2, cache.getTamanio());
+        assertTrue(cerradas.contains(a.pstmt));
+        assertTrue(cerradas.contains(b.pstmt));
+        assertFalse(cerradas.contains(c.pstmt));
+    }
+
+    @Test
+    void elMismoSqlEnUsoPreparaUnaSentenciaTemporal() throws SQLException {
+        CacheSentencias.Sentencia exterior = obtener("SELECT x");
+        CacheSentencias.Sentencia anidada = obtener("SELECT x");
+        assertNotSame(exterior.pstmt, anidada.pstmt);
+        assertFalse(anidada.cacheada);
+
+        cache.liberar(anidada);
+        assertTrue(cerradas.contains(anidada.pstmt));
+        cache.liberar(exterior);
+        assertFalse(cerradas.contains(exterior.pstmt));
+        assertEquals(1, cache.getTamanio());
+        assertSame(exterior.pstmt, obtener("SELECT x").pstmt);
+    }
+
+    @Test
+    void unaSentenciaCerradaPorElDriverSeVuelveAPreparar() throws SQLException {
+        CacheSentencias.Sentencia a = obtener("A");
+        cache.liberar(a);
+        a.pstmt.close();
+        CacheSentencias.Sentencia otra = obtener("A");
+        assertNotSame(a.pstmt, otra.pstmt);
+        assertEquals(1, cache.getTamanio());
+    }
+
+    @Test
+    void cerrarCierraTodas() throws SQLException {
+        cache.liberar(obtener("A"));
+        cache.liberar(obtener("B"));
+        cache.cerrar();
+        assertEquals(0, cache.getTamanio());
+        assertEquals(2, cerradas.size());
+    }
+}